@@ -0,0 +1,382 @@
+package src.com.bjsxt.tank.Config;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * AI学习数据的存取
+ * 文件格式：魔数 + 版本号 + 数据长度 + 数据 + CRC32 校验，数据部分按版本解析，旧版本在读取时迁移；
+ * 保存在后台线程进行，先写临时文件再重命名替换，写入过程中退出也不会损坏原文件；
+ * 校验失败的文件会被改名保留，不会被直接覆盖
+ */
+public class AIDataStore {
+    private static final String DATA_DIR = System.getProperty("user.dir") + File.separator + "Data";
+    private static final String SAVE_FILE = "AITankData.dat";
+
+    private static final int MAGIC = 0x54574149; // "TWAI"
+    private static final int CURRENT_VERSION = 1;
+    // Java序列化流的开头，用于识别旧版数据文件
+    private static final int LEGACY_MAGIC = 0xACED;
+    private static final int MAX_PAYLOAD = 1 << 20;
+
+    private static AIDataStore instance;
+
+    private final File file;
+    private final ExecutorService writer;
+    // 等待写入的最新数据；连续多次保存只写最后一次
+    private final AtomicReference<AIData> pending = new AtomicReference<>();
+    // 最近一次保存的数据，写盘完成前读取也能拿到最新结果
+    private volatile AIData latest;
+
+    /**
+     * 一份学习数据，创建后不再修改，可以安全地交给写入线程
+     */
+    public static final class AIData {
+        final double aggressiveness;
+        final double intelligence;
+        final double precision;
+        final int level;
+        final long timestamp;
+        final int lifetimeShots;
+        final int lifetimeHits;
+        final int matchesPlayed;
+        final Map<String, Double> weights;
+        final Map<String, Double> playerPatterns;
+
+        AIData(double aggressiveness, double intelligence, double precision, int level, long timestamp,
+               int lifetimeShots, int lifetimeHits, int matchesPlayed,
+               Map<String, Double> weights, Map<String, Double> playerPatterns) {
+            this.aggressiveness = aggressiveness;
+            this.intelligence = intelligence;
+            this.precision = precision;
+            this.level = level;
+            this.timestamp = timestamp;
+            this.lifetimeShots = lifetimeShots;
+            this.lifetimeHits = lifetimeHits;
+            this.matchesPlayed = matchesPlayed;
+            this.weights = Collections.unmodifiableMap(weights);
+            this.playerPatterns = Collections.unmodifiableMap(playerPatterns);
+        }
+
+        /**
+         * 合并从同一份数据出发、分别训练得到的多份结果：权重和性格取平均，生涯统计累加各自的增量
+         */
+        public static AIData merge(AIData baseline, List<AIData> results) {
+            if (results.isEmpty()) {
+                return baseline;
+            }
+            int n = results.size();
+            double aggressiveness = 0, intelligence = 0, precision = 0;
+            long shots = baseline.lifetimeShots, hits = baseline.lifetimeHits, matches = baseline.matchesPlayed;
+            for (AIData result : results) {
+                aggressiveness += result.aggressiveness / n;
+                intelligence += result.intelligence / n;
+                precision += result.precision / n;
+                shots += result.lifetimeShots - baseline.lifetimeShots;
+                hits += result.lifetimeHits - baseline.lifetimeHits;
+                matches += result.matchesPlayed - baseline.matchesPlayed;
+            }
+            return new AIData(aggressiveness, intelligence, precision, baseline.level, System.currentTimeMillis(),
+                    (int) Math.min(Integer.MAX_VALUE, shots), (int) Math.min(Integer.MAX_VALUE, hits),
+                    (int) Math.min(Integer.MAX_VALUE, matches),
+                    average(baseline.weights, results, true), average(baseline.playerPatterns, results, false));
+        }
+
+        // 逐项取平均，某份结果中没有的项按原值计算
+        private static Map<String, Double> average(Map<String, Double> baseline, List<AIData> results, boolean weights) {
+            Set<String> keys = new HashSet<>(baseline.keySet());
+            for (AIData result : results) {
+                keys.addAll(weights ? result.weights.keySet() : result.playerPatterns.keySet());
+            }
+            Map<String, Double> averaged = new HashMap<>();
+            for (String key : keys) {
+                double fallback = baseline.getOrDefault(key, 0.0);
+                double sum = 0;
+                for (AIData result : results) {
+                    Map<String, Double> table = weights ? result.weights : result.playerPatterns;
+                    sum += table.getOrDefault(key, fallback);
+                }
+                averaged.put(key, sum / results.size());
+            }
+            return averaged;
+        }
+    }
+
+    // 单例模式
+    public static synchronized AIDataStore getInstance() {
+        if (instance == null) {
+            instance = new AIDataStore(new File(DATA_DIR, SAVE_FILE));
+        }
+        return instance;
+    }
+
+    private AIDataStore(File file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "AIDataWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 退出游戏时等待未完成的保存
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "AIDataFlush"));
+    }
+
+    /**
+     * 异步保存，立即返回
+     */
+    public void save(AIData data) {
+        latest = data;
+        if (pending.getAndSet(data) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    /**
+     * 等待已提交的保存全部写完
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("等待AI数据写入失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取学习数据
+     * @return 没有数据文件或文件无法识别时返回 null
+     */
+    public AIData load() {
+        AIData data = latest;
+        if (data != null) {
+            return data;
+        }
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.mark(4);
+            if (in.readUnsignedShort() == LEGACY_MAGIC) {
+                in.reset();
+                data = readLegacy(in);
+                System.out.println("已读取旧版AI数据，下次保存时转换为新格式");
+            } else {
+                in.reset();
+                data = readCurrent(in);
+            }
+            latest = data;
+            return data;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("AI数据文件已损坏: " + e.getMessage());
+            e.printStackTrace();
+            quarantine();
+            return null;
+        }
+    }
+
+    private AIData readCurrent(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("无法识别的文件格式");
+        }
+        int version = in.readUnsignedShort();
+        if (version < 1 || version > CURRENT_VERSION) {
+            throw new IOException("不支持的数据版本: " + version);
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD) {
+            throw new IOException("数据长度异常: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != in.readInt()) {
+            throw new IOException("校验和不匹配");
+        }
+        return readPayload(version, new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    /**
+     * 把学习数据按当前版本写入流（不含文件头和校验），回放日志等其他格式嵌入学习数据时使用
+     */
+    public static void writeData(DataOutputStream out, AIData data) throws IOException {
+        out.writeShort(CURRENT_VERSION);
+        writePayload(out, data);
+    }
+
+    /**
+     * 读取 writeData() 写入的学习数据
+     */
+    public static AIData readData(DataInputStream in) throws IOException {
+        return readPayload(in.readUnsignedShort(), in);
+    }
+
+    /**
+     * 按版本解析数据部分；以后调整格式时增加版本号并在这里迁移旧版本
+     */
+    private static AIData readPayload(int version, DataInputStream in) throws IOException {
+        switch (version) {
+            case 1:
+                double aggressiveness = in.readDouble();
+                double intelligence = in.readDouble();
+                double precision = in.readDouble();
+                int level = in.readInt();
+                long timestamp = in.readLong();
+                int shots = in.readInt();
+                int hits = in.readInt();
+                int matches = in.readInt();
+                Map<String, Double> weights = readTable(in);
+                Map<String, Double> patterns = readTable(in);
+                return new AIData(aggressiveness, intelligence, precision, level, timestamp,
+                        shots, hits, matches, weights, patterns);
+            default:
+                throw new IOException("不支持的数据版本: " + version);
+        }
+    }
+
+    private static Map<String, Double> readTable(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_PAYLOAD) {
+            throw new IOException("数据条目数异常: " + count);
+        }
+        Map<String, Double> table = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            table.put(in.readUTF(), in.readDouble());
+        }
+        return table;
+    }
+
+    /**
+     * 读取用Java序列化保存的旧版数据
+     */
+    @SuppressWarnings("unchecked")
+    private AIData readLegacy(InputStream in) throws IOException, ClassNotFoundException {
+        Map<String, Object> saveData = (Map<String, Object>) new ObjectInputStream(in).readObject();
+        double[] personality = saveData.get("personality") instanceof double[]
+                ? (double[]) saveData.get("personality") : new double[0];
+        // 更早的版本直接把权重放在顶层
+        Object weights = saveData.containsKey("weights") ? saveData.get("weights") : saveData;
+        return new AIData(
+                personality.length >= 3 ? personality[0] : 0.7,
+                personality.length >= 3 ? personality[1] : 0.6,
+                personality.length >= 3 ? personality[2] : 0.8,
+                legacyNumber(saveData, "level").intValue(),
+                legacyNumber(saveData, "timestamp").longValue(),
+                legacyNumber(saveData, "lifetime_shots").intValue(),
+                legacyNumber(saveData, "lifetime_hits").intValue(),
+                legacyNumber(saveData, "matches_played").intValue(),
+                legacyTable(weights),
+                legacyTable(saveData.get("playerPatterns")));
+    }
+
+    private Number legacyNumber(Map<String, Object> saveData, String key) {
+        Object value = saveData.get(key);
+        return value instanceof Number ? (Number) value : 0;
+    }
+
+    private Map<String, Double> legacyTable(Object value) {
+        Map<String, Double> table = new HashMap<>();
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getKey() instanceof String && entry.getValue() instanceof Number) {
+                    table.put((String) entry.getKey(), ((Number) entry.getValue()).doubleValue());
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 把无法读取的文件改名保留，避免被新数据覆盖后无从排查
+     */
+    private void quarantine() {
+        File corrupt = new File(file.getParentFile(), file.getName() + ".corrupt-" + System.currentTimeMillis());
+        if (file.renameTo(corrupt)) {
+            System.err.println("已将损坏的AI数据保留为: " + corrupt.getName());
+        }
+    }
+
+    // 写入线程：取出最新数据写盘
+    private void writePending() {
+        AIData data = pending.getAndSet(null);
+        if (data == null) return;
+        try {
+            write(data);
+        } catch (IOException e) {
+            System.err.println("保存AI数据失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void write(AIData data) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建数据目录: " + dir);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        DataOutputStream payload = new DataOutputStream(buffer);
+        writePayload(payload, data);
+        payload.flush();
+        byte[] bytes = buffer.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(MAGIC);
+            out.writeShort(CURRENT_VERSION);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        System.out.println("AI数据已保存到: " + file.getAbsolutePath());
+    }
+
+    private static void writePayload(DataOutputStream out, AIData data) throws IOException {
+        out.writeDouble(data.aggressiveness);
+        out.writeDouble(data.intelligence);
+        out.writeDouble(data.precision);
+        out.writeInt(data.level);
+        out.writeLong(data.timestamp);
+        out.writeInt(data.lifetimeShots);
+        out.writeInt(data.lifetimeHits);
+        out.writeInt(data.matchesPlayed);
+        writeTable(out, data.weights);
+        writeTable(out, data.playerPatterns);
+    }
+
+    private static void writeTable(DataOutputStream out, Map<String, Double> table) throws IOException {
+        // 按名称排序，相同数据写出的文件内容一致
+        Map<String, Double> sorted = new TreeMap<>(table);
+        out.writeInt(sorted.size());
+        for (Map.Entry<String, Double> entry : sorted.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+    }
+}
@@ -1,10 +1,7 @@
 package src.com.bjsxt.tank.Config;
 
 import src.com.bjsxt.tank.InterFace.CollisionDetector;
-import javax.swing.*;
 import java.awt.*;
-import java.io.*;
-import java.net.URL;
 import java.util.*;
 import java.util.List;
 
@@ -13,6 +10,8 @@ public class AITank extends AbstractTank {
     private double angle = 0; // 0表示向右，逆时针为正（数学坐标系）
     private final String tankPath = "/src/Images/TankImage/EnemyTank/tankR.gif";
     private Image tankImage;
+    private SpriteAtlas sprite; // 预旋转图集（GIF的所有帧）
+    private boolean imagesLoaded;
     
     // 移动和碰撞
     private CollisionDetector detector;
@@ -21,22 +20,23 @@ public class AITank extends AbstractTank {
     
     // 子弹管理
     private List<EnemyBullet> bullets;
-    private static int fireInterval = 2500;
+    private static final int FIRE_INTERVAL = 2500;
     
     // 时间控制
     private long lastActionTime = 0;
     private long lastFireTime = 0;
     private long lastPlayerPositionUpdate = 0;
     private long lastStateChangeTime = 0;
-    private static long actionDelay = 100;
+    private long actionDelay = 100; // 每辆坦克按各自关卡调整，多个世界并行时互不影响
+    private int difficultyLevel = 1; // 当前所在关卡，学习率按它调整
     private static final long PATTERN_UPDATE_INTERVAL = 1000;
     private static final long STATE_CHANGE_COOLDOWN = 1500; // 冷却时间
 
     public void setAlive(boolean b) {
         super.setAlive(b);
         if (!b) {
-            // AI坦克死亡时清空子弹
-            bullets.clear();
+            // AI坦克死亡时回收子弹
+            clearBullets();
         }
     }
 
@@ -45,7 +45,9 @@ public class AITank extends AbstractTank {
         NORMAL,      // 普通行为
         ATTACKING,   // 攻击模式
         EVADING,     // 躲避模式
-        STRATEGIC    // 策略模式
+        STRATEGIC;   // 策略模式
+
+        static final BehaviorState[] VALUES = values();
     }
     private BehaviorState currentBehaviorState = BehaviorState.NORMAL;
     private BehaviorState previousState = BehaviorState.NORMAL;
@@ -58,23 +60,123 @@ public class AITank extends AbstractTank {
     // 学习系统
     private double learningRate = 0.05;
     private double decayFactor = 0.95;
-    private Map<String, Double> weights = new HashMap<>();
-    private Map<String, Double> playerPatterns = new HashMap<>();
+    // 学习状态保存在按枚举下标索引的定长数组中，更新时不创建字符串和装箱对象
+    private final double[] weights = new double[Feature.COUNT];
+    private final double[] playerPatterns = new double[Pattern.COUNT];
+    // 行为状态切换统计，下标为 前一状态 * 状态数 + 新状态
+    private static final int STATE_COUNT = BehaviorState.VALUES.length;
+    private static final String STATE_CHANGE_PREFIX = "state_change_";
+    private final double[] stateTransitions = new double[STATE_COUNT * STATE_COUNT];
+    // 决策时各状态的权重，每次决策清零后复用
+    private final double[] stateWeights = new double[STATE_COUNT];
+
+    /**
+     * 行为权重，key 为保存文件中使用的名称
+     */
+    private enum Feature {
+        // 基础行为权重
+        CHASE("chase", 0.9),
+        EVADE("evade", 0.4),
+        SHOOT("shoot", 0.85),
+        // 策略权重
+        AGGRESSIVE("aggressive", 0.9),
+        DEFENSIVE("defensive", 0.3),
+        PATTERN_RECOGNITION("pattern_recognition", 0.6),
+        PREDICT("predict", 0.4),
+        STRATEGIC("strategic", 0.5),
+        GAME_SENSE("game_sense", 0),
+        // 侧移权重
+        STRAFE_LEFT("strafe_left", 0.5),
+        STRAFE_RIGHT("strafe_right", 0.5),
+        // 性格特性
+        PERSONALITY_AGGRESSIVE("personality_aggressive", 0.7),
+        PERSONALITY_INTELLIGENCE("personality_intelligence", 0.6),
+        PERSONALITY_PRECISION("personality_precision", 0.8),
+        // 命中统计
+        SHOT_ACCURACY("shot_accuracy", 0.5),
+        PREDICTION_ACCURACY("prediction_accuracy", 0.5),
+        // 场景学习
+        TARGET_NEAR_WALL("target_near_wall", 0),
+        AVOID_WALL_POSITION("avoid_wall_position", 0),
+        CLOSE_COMBAT("close_combat", 0),
+        MID_RANGE_COMBAT("mid_range_combat", 0),
+        LONG_RANGE_COMBAT("long_range_combat", 0),
+        // 玩家相对位置（右/左 + 下/上）
+        POS_RD("pos_RD", 0),
+        POS_RU("pos_RU", 0),
+        POS_LD("pos_LD", 0),
+        POS_LU("pos_LU", 0),
+        // 玩家行为模式识别，与 Pattern 一一对应
+        PATTERN_MOVE_UP("pattern_move_0", 0),
+        PATTERN_MOVE_RIGHT("pattern_move_1", 0),
+        PATTERN_MOVE_DOWN("pattern_move_2", 0),
+        PATTERN_MOVE_LEFT("pattern_move_3", 0),
+        PATTERN_SHOOT_FREQ("pattern_shoot_freq", 0),
+        PATTERN_POS_RIGHT("pattern_pos_right", 0),
+        PATTERN_POS_LEFT("pattern_pos_left", 0),
+        PATTERN_POS_DOWN("pattern_pos_down", 0),
+        PATTERN_POS_UP("pattern_pos_up", 0);
+
+        static final Feature[] VALUES = values();
+        static final int COUNT = VALUES.length;
+
+        final String key;
+        final double defaultValue;
+
+        Feature(String key, double defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    /**
+     * 玩家行为模式，key 为保存文件中使用的名称
+     */
+    private enum Pattern {
+        MOVE_UP("move_0", Feature.PATTERN_MOVE_UP),
+        MOVE_RIGHT("move_1", Feature.PATTERN_MOVE_RIGHT),
+        MOVE_DOWN("move_2", Feature.PATTERN_MOVE_DOWN),
+        MOVE_LEFT("move_3", Feature.PATTERN_MOVE_LEFT),
+        SHOOT_FREQ("shoot_freq", Feature.PATTERN_SHOOT_FREQ),
+        POS_RIGHT("pos_right", Feature.PATTERN_POS_RIGHT),
+        POS_LEFT("pos_left", Feature.PATTERN_POS_LEFT),
+        POS_DOWN("pos_down", Feature.PATTERN_POS_DOWN),
+        POS_UP("pos_up", Feature.PATTERN_POS_UP);
+
+        static final Pattern[] VALUES = values();
+        static final int COUNT = VALUES.length;
+
+        final String key;
+        final Feature feature; // 对应的模式识别权重
+
+        Pattern(String key, Feature feature) {
+            this.key = key;
+            this.feature = feature;
+        }
+
+        // 玩家移动方向（0:上, 1:右, 2:下, 3:左）对应的模式
+        static Pattern move(int direction) {
+            return VALUES[MOVE_UP.ordinal() + Math.floorMod(direction, 4)];
+        }
+    }
     
     // 生涯统计
     private int lifetimeShots = 0;
     private int lifetimeHits = 0;
     private int matchesPlayed = 0;
+    // 为 false 时学习结果只保留在内存中（批量训练时由训练器统一合并保存）
+    private boolean persistent = true;
     
     // 文件路径
-    private static final String DATA_DIR = System.getProperty("user.dir") + File.separator + "Data";
-    private static final String SAVE_FILE = "AITankData.dat";
     
     // 性能优化
-    private final Random random = new Random();
     private int lastPlayerX = 0;
     private int lastPlayerY = 0;
     private double predictFactor = 0.0; // 子弹预测因子
+
+    // 导航寻路
+    private final PathPlanner pathPlanner = new PathPlanner();
+    private final int[] waypoint = new int[2];
     
     // 威胁检测距离
     private static final double BULLET_DETECT_DISTANCE = 250;
@@ -85,32 +187,20 @@ public class AITank extends AbstractTank {
         this.detector = detector;
         
         // 初始化数据和组件
-        createDataDirectory();
         loadLearnedData();
         initializePersonality();
-        loadTankImage();
         
         this.bullets = new ArrayList<>();
-        this.lastActionTime = System.currentTimeMillis();
-        this.lastPlayerPositionUpdate = System.currentTimeMillis();
-        this.lastStateChangeTime = System.currentTimeMillis();
-        
-        // 增加射击权重初始值
-        if (!weights.containsKey("shoot")) {
-            weights.put("shoot", 0.9);
-        }
     }
     
-    //加载坦克图像
+    //加载坦克图像，第一次绘制时才加载，无界面运行时不解码图片
     private void loadTankImage() {
+        if (imagesLoaded) return;
+        imagesLoaded = true;
         try {
-            URL url = getClass().getResource(tankPath);
-            if (url == null) {
-                System.err.println("AI坦克图片不存在: " + tankPath);
-                return;
-            }
-            ImageIcon icon = new ImageIcon(url);
-            tankImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
+            sprite = SpriteAtlas.get(width, height, tankPath);
+            if (sprite == null) return;
+            tankImage = sprite.getFrame(0);
 
         } catch (Exception e) {
             System.err.println("无法加载AI坦克图像: " + e.getMessage());
@@ -118,19 +208,9 @@ public class AITank extends AbstractTank {
     }
 
     private void initializePersonality() {
-        this.aggressiveness = weights.getOrDefault("personality_aggressive", 0.7);
-        this.intelligence = weights.getOrDefault("personality_intelligence", 0.6);
-        this.precision = weights.getOrDefault("personality_precision", 0.8);
-    }
-
-    private void createDataDirectory() {
-        File dataDir = new File(DATA_DIR);
-        if (!dataDir.exists()) {
-            boolean created = dataDir.mkdirs();
-            if (!created) {
-                System.err.println("无法创建数据目录: " + DATA_DIR);
-            }
-        }
+        this.aggressiveness = weights[Feature.PERSONALITY_AGGRESSIVE.ordinal()];
+        this.intelligence = weights[Feature.PERSONALITY_INTELLIGENCE.ordinal()];
+        this.precision = weights[Feature.PERSONALITY_PRECISION.ordinal()];
     }
 
     public void updateAI(PlayerTank player, int currentLevel) {
@@ -139,7 +219,7 @@ public class AITank extends AbstractTank {
         // 适应当前难度级别
         adaptToDifficulty(currentLevel);
         
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         
         // 更新玩家模式学习数据
         if (currentTime - lastPlayerPositionUpdate > 200) {
@@ -190,7 +270,7 @@ public class AITank extends AbstractTank {
 
     private void decideBehaviorState(PlayerTank player, double distance, double threatLevel) {
         // 添加状态持续时间跟踪
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         if (currentTime - lastStateChangeTime < STATE_CHANGE_COOLDOWN) {
             // 在冷却期内不改变状态，减少抽搐
             return;
@@ -244,9 +324,9 @@ public class AITank extends AbstractTank {
     }
 
     private void adjustBehaviorBasedOnLearning() {
-        double attackWeight = weights.getOrDefault("chase", 0.5);
-        double evadeWeight = weights.getOrDefault("evade", 0.5);
-        double strategicWeight = weights.getOrDefault("strategic", 0.5);
+        double attackWeight = weights[Feature.CHASE.ordinal()];
+        double evadeWeight = weights[Feature.EVADE.ordinal()];
+        double strategicWeight = weights[Feature.STRATEGIC.ordinal()];
         
         double totalWeight = attackWeight + evadeWeight + strategicWeight;
         double attackProb = attackWeight / totalWeight;
@@ -346,7 +426,7 @@ public class AITank extends AbstractTank {
         double perpAngle;
         
         // 根据权重选择侧移方向
-        if (weights.getOrDefault("strafe_right", 0.5) > weights.getOrDefault("strafe_left", 0.5)) {
+        if (weights[Feature.STRAFE_RIGHT.ordinal()] > weights[Feature.STRAFE_LEFT.ordinal()]) {
             perpAngle = angleToPlayer + Math.PI/2; // 向右侧移
         } else {
             perpAngle = angleToPlayer - Math.PI/2; // 向左侧移
@@ -362,8 +442,8 @@ public class AITank extends AbstractTank {
             y = newY;
             
             // 更新权重
-            String strafeDir = perpAngle > angleToPlayer ? "strafe_right" : "strafe_left";
-            weights.merge(strafeDir, 0.1, Double::sum);
+            Feature strafeDir = perpAngle > angleToPlayer ? Feature.STRAFE_RIGHT : Feature.STRAFE_LEFT;
+            weights[strafeDir.ordinal()] += 0.1;
         } else {
             // 碰撞，换向
             perpAngle = angleToPlayer + (perpAngle > angleToPlayer ? -Math.PI/2 : Math.PI/2);
@@ -374,8 +454,8 @@ public class AITank extends AbstractTank {
                 x = newX;
                 y = newY;
                 
-                String strafeDir = perpAngle > angleToPlayer ? "strafe_right" : "strafe_left";
-                weights.merge(strafeDir, 0.1, Double::sum);
+                Feature strafeDir = perpAngle > angleToPlayer ? Feature.STRAFE_RIGHT : Feature.STRAFE_LEFT;
+                weights[strafeDir.ordinal()] += 0.1;
             }
         }
         
@@ -599,7 +679,7 @@ public class AITank extends AbstractTank {
      * 随机移动
      */
     private void randomMove(double speedFactor) {
-        double moveAngle = Math.random() * 2 * Math.PI;
+        double moveAngle = random.nextDouble() * 2 * Math.PI;
         int newX = (int)(x + Math.cos(moveAngle) * currentSpeed * speedFactor);
         int newY = (int)(y + Math.sin(moveAngle) * currentSpeed * speedFactor);
 
@@ -763,25 +843,24 @@ public class AITank extends AbstractTank {
      * 更新玩家行为模式
      */
     private void updatePlayerPatterns(PlayerTank player) {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         if (currentTime - lastPlayerPositionUpdate < PATTERN_UPDATE_INTERVAL) return;
 
         // 记录移动方向模式
-        String patternKey = "move_" + player.getDirection();
-        playerPatterns.merge(patternKey, 1.0, Double::sum);
+        playerPatterns[Pattern.move(player.getDirection()).ordinal()] += 1.0;
 
         // 记录射击模式
         if (player.isShooting()) {
-            playerPatterns.merge("shoot_freq", 1.0, Double::sum);
+            playerPatterns[Pattern.SHOOT_FREQ.ordinal()] += 1.0;
         }
         
         // 记录相对位置偏好
         int relX = player.getX() - x;
         int relY = player.getY() - y;
-        String posKey = "pos_" + (Math.abs(relX) > Math.abs(relY) ? 
-                                 (relX > 0 ? "right" : "left") : 
-                                 (relY > 0 ? "down" : "up"));
-        playerPatterns.merge(posKey, 1.0, Double::sum);
+        Pattern posPattern = Math.abs(relX) > Math.abs(relY) ?
+                (relX > 0 ? Pattern.POS_RIGHT : Pattern.POS_LEFT) :
+                (relY > 0 ? Pattern.POS_DOWN : Pattern.POS_UP);
+        playerPatterns[posPattern.ordinal()] += 1.0;
         
         // 标准化模式数据
         normalizePatterns();
@@ -796,12 +875,15 @@ public class AITank extends AbstractTank {
      * 标准化模式数据
      */
     private void normalizePatterns() {
-        double sum = playerPatterns.values().stream()
-                .mapToDouble(Double::doubleValue)
-                .sum();
+        double sum = 0;
+        for (double value : playerPatterns) {
+            sum += value;
+        }
         
         if (sum > 0) {
-            playerPatterns.replaceAll((k, v) -> v / sum);
+            for (int i = 0; i < playerPatterns.length; i++) {
+                playerPatterns[i] /= sum;
+            }
         }
     }
     
@@ -810,8 +892,8 @@ public class AITank extends AbstractTank {
      */
     private boolean shouldShoot(PlayerTank player, double distance, double angleToPlayer, double levelFactor) {
         // 检查冷却时间
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFireTime < fireInterval) {
+        long currentTime = now();
+        if (currentTime - lastFireTime < FIRE_INTERVAL) {
             return false;
         }
 
@@ -831,7 +913,7 @@ public class AITank extends AbstractTank {
                 (0.4 + 0.3 * distanceFactor + 0.3 * angleFactor) *
                 (0.6 + precision * 0.4) *
                 (0.6 + aggressiveness * 0.4) *
-                weights.getOrDefault("shoot", 0.9);
+                weights[Feature.SHOOT.ordinal()];
 
         // 特殊情况调整
         if (player.getHealth() < 50) shootProb *= 1.5;
@@ -846,7 +928,7 @@ public class AITank extends AbstractTank {
      */
     public void learn(boolean success, PlayerTank player) {
         // 动态调整学习率
-        double dynamicLearningRate = learningRate * (1 + ConfigTool.getLevel() * 0.1);
+        double dynamicLearningRate = learningRate * (1 + difficultyLevel * 0.1);
         double adjustment = success ? dynamicLearningRate : -dynamicLearningRate * 0.5;
 
         // 更新基础行为权重
@@ -884,26 +966,26 @@ public class AITank extends AbstractTank {
         // 基于空间关系更新权重
         if (isPlayerNearWall && success) {
             // 如果玩家靠近墙壁且AI成功，增强这种情况的权重
-            weights.merge("target_near_wall", 0.1, Double::sum);
+            weights[Feature.TARGET_NEAR_WALL.ordinal()] += 0.1;
         }
         
         if (isAINearWall && !success) {
             // 如果AI靠近墙壁且失败，降低这种情况的权重
-            weights.merge("avoid_wall_position", 0.1, Double::sum);
+            weights[Feature.AVOID_WALL_POSITION.ordinal()] += 0.1;
         }
         
         // 基于距离学习
-        String key;
+        Feature key;
         if (distance < 150) {
-            key = "close_combat";
+            key = Feature.CLOSE_COMBAT;
         } else if (distance < 300) {
-            key = "mid_range_combat";
+            key = Feature.MID_RANGE_COMBAT;
         } else {
-            key = "long_range_combat";
+            key = Feature.LONG_RANGE_COMBAT;
         }
         
         double value = success ? 0.05 : -0.03;
-        weights.merge(key, value, Double::sum);
+        weights[key.ordinal()] += value;
     }
     
     /**
@@ -942,12 +1024,15 @@ public class AITank extends AbstractTank {
      * 更新基础行为权重
      */
     private void updateBasicWeights(double adjustment) {
-        weights.merge("chase", adjustment, (oldVal, newVal) ->
-                oldVal * decayFactor + newVal * (1 - decayFactor));
-        weights.merge("evade", adjustment, (oldVal, newVal) ->
-                oldVal * decayFactor + newVal * (1 - decayFactor));
-        weights.merge("shoot", adjustment, (oldVal, newVal) ->
-                oldVal * decayFactor + newVal * (1 - decayFactor));
+        decayToward(Feature.CHASE, adjustment);
+        decayToward(Feature.EVADE, adjustment);
+        decayToward(Feature.SHOOT, adjustment);
+    }
+
+    // 权重按衰减系数向新值靠拢
+    private void decayToward(Feature feature, double value) {
+        int i = feature.ordinal();
+        weights[i] = weights[i] * decayFactor + value * (1 - decayFactor);
     }
     
     /**
@@ -957,8 +1042,10 @@ public class AITank extends AbstractTank {
         // 根据相对位置学习
         double relX = player.getX() - this.x;
         double relY = player.getY() - this.y;
-        String posKey = "pos_" + (relX > 0 ? "R" : "L") + (relY > 0 ? "D" : "U");
-        weights.merge(posKey, adjustment, Double::sum);
+        Feature posKey = relX > 0 ?
+                (relY > 0 ? Feature.POS_RD : Feature.POS_RU) :
+                (relY > 0 ? Feature.POS_LD : Feature.POS_LU);
+        weights[posKey.ordinal()] += adjustment;
     }
     
     /**
@@ -966,23 +1053,32 @@ public class AITank extends AbstractTank {
      */
     private void updatePatternRecognition(double adjustment) {
         // 更新玩家模式识别权重
-        playerPatterns.forEach((key, value) ->
-                weights.merge("pattern_" + key, value * adjustment, Double::sum));
+        for (Pattern pattern : Pattern.VALUES) {
+            weights[pattern.feature.ordinal()] += playerPatterns[pattern.ordinal()] * adjustment;
+        }
     }
     
     /**
      * 标准化权重
      */
     private void normalizeWeights() {
-        double total = weights.values().stream()
-                .filter(v -> v > 0) // 只考虑正值
-                .mapToDouble(Double::doubleValue)
-                .sum();
+        double total = 0;
+        for (double v : weights) {
+            if (v > 0) total += v; // 只考虑正值
+        }
+        for (double v : stateTransitions) {
+            if (v > 0) total += v;
+        }
                 
         if (total == 0) return; // 防止除以零
 
         // 只标准化正值，负值保持原样
-        weights.replaceAll((k, v) -> v > 0 ? v / total : v);
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0) weights[i] /= total;
+        }
+        for (int i = 0; i < stateTransitions.length; i++) {
+            if (stateTransitions[i] > 0) stateTransitions[i] /= total;
+        }
     }
     
     /**
@@ -996,15 +1092,15 @@ public class AITank extends AbstractTank {
         switch (random.nextInt(3)) {
             case 0:
                 aggressiveness = Math.max(0.1, Math.min(1.0, aggressiveness + adjustment));
-                weights.put("personality_aggressive", aggressiveness);
+                weights[Feature.PERSONALITY_AGGRESSIVE.ordinal()] = aggressiveness;
                 break;
             case 1:
                 intelligence = Math.max(0.1, Math.min(1.0, intelligence + adjustment));
-                weights.put("personality_intelligence", intelligence);
+                weights[Feature.PERSONALITY_INTELLIGENCE.ordinal()] = intelligence;
                 break;
             case 2:
                 precision = Math.max(0.1, Math.min(1.0, precision + adjustment));
-                weights.put("personality_precision", precision);
+                weights[Feature.PERSONALITY_PRECISION.ordinal()] = precision;
                 break;
         }
     }
@@ -1013,139 +1109,166 @@ public class AITank extends AbstractTank {
      * 保存学习数据
      */
     public void saveLearnedData() {
-        createDataDirectory(); // 确保目录存在
-        
-        File saveFile = new File(DATA_DIR, SAVE_FILE);
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(saveFile))) {
-                
-            // 保存完整的学习数据
-            Map<String, Object> saveData = new HashMap<>();
-            saveData.put("weights", weights);
-            saveData.put("playerPatterns", playerPatterns);
-            saveData.put("personality", new double[]{aggressiveness, intelligence, precision});
-            saveData.put("level", ConfigTool.getLevel());
-            saveData.put("timestamp", System.currentTimeMillis());
-            saveData.put("lifetime_shots", lifetimeShots);
-            saveData.put("lifetime_hits", lifetimeHits);
-            saveData.put("matches_played", matchesPlayed);
-            
-            oos.writeObject(saveData);
-            System.out.println("AI数据已保存到: " + saveFile.getAbsolutePath());
-        } catch (IOException e) {
-            System.err.println("保存AI数据失败: " + e.getMessage());
-            e.printStackTrace();
-        }
+        if (!persistent) return;
+        // 在当前线程生成快照，写盘交给后台线程
+        AIDataStore.getInstance().save(exportLearnedData());
+    }
+
+    /**
+     * 设置是否把学习结果写入存档
+     */
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * 导出当前的学习数据
+     */
+    public AIDataStore.AIData exportLearnedData() {
+        return new AIDataStore.AIData(
+                aggressiveness, intelligence, precision,
+                ConfigTool.getLevel(), System.currentTimeMillis(),
+                lifetimeShots, lifetimeHits, matchesPlayed,
+                exportWeights(), exportPatterns());
     }
     
     /**
      * 加载学习数据
      */
-    @SuppressWarnings("unchecked")
     private void loadLearnedData() {
-        File file = new File(DATA_DIR, SAVE_FILE);
-        if (!file.exists()) {
-            System.out.println("未找到AI数据文件，创建默认权重");
-            this.weights = createDefaultWeights();
+        AIDataStore.AIData data = AIDataStore.getInstance().load();
+        if (data == null) {
+            System.out.println("未找到可用的AI数据，创建默认权重");
+            resetWeights();
             return;
         }
+        importLearnedData(data);
+        System.out.println("AI数据加载成功");
+    }
 
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(file))) {
-            
-            Map<String, Object> saveData = (Map<String, Object>) ois.readObject();
-
-            // 加载性格特性
-            if (saveData.containsKey("personality")) {
-                double[] personality = (double[]) saveData.get("personality");
-                if (personality.length >= 3) {
-                    this.aggressiveness = personality[0];
-                    this.intelligence = personality[1];
-                    this.precision = personality[2];
-                }
-            }
-            
-            // 加载玩家模式数据
-            if (saveData.containsKey("playerPatterns")) {
-                this.playerPatterns = (Map<String, Double>) saveData.get("playerPatterns");
-            } else {
-                this.playerPatterns = new HashMap<>();
-            }
-            
-            // 加载权重
-            if (saveData.containsKey("weights")) {
-                this.weights = (Map<String, Double>) saveData.get("weights");
-            } else {
-                // 为兼容旧版数据，创建一个新的Map并填充Double类型的值
-                this.weights = new HashMap<>();
-                for (Map.Entry<String, Object> entry : saveData.entrySet()) {
-                    if (entry.getValue() instanceof Number) {
-                        this.weights.put(entry.getKey(), ((Number)entry.getValue()).doubleValue());
-                    }
-                }
-            }
-            
-            // 加载生涯统计
-            if (saveData.containsKey("lifetime_shots")) {
-                this.lifetimeShots = ((Number)saveData.get("lifetime_shots")).intValue();
-            }
-            
-            if (saveData.containsKey("lifetime_hits")) {
-                this.lifetimeHits = ((Number)saveData.get("lifetime_hits")).intValue();
-            }
-            
-            if (saveData.containsKey("matches_played")) {
-                this.matchesPlayed = ((Number)saveData.get("matches_played")).intValue();
-            }
-            
-            System.out.println("AI数据加载成功");
-        } catch (Exception e) {
-            System.err.println("加载AI数据失败: " + e.getMessage());
-            e.printStackTrace();
-            this.weights = createDefaultWeights();
-        }
+    /**
+     * 用给定的学习数据替换当前的权重、性格和生涯统计
+     */
+    public void importLearnedData(AIDataStore.AIData data) {
+        // 加载性格特性
+        this.aggressiveness = data.aggressiveness;
+        this.intelligence = data.intelligence;
+        this.precision = data.precision;
+        
+        // 加载玩家模式数据
+        Arrays.fill(playerPatterns, 0);
+        importPatterns(data.playerPatterns);
+        
+        // 加载权重
+        Arrays.fill(stateTransitions, 0);
+        importWeights(data.weights);
+        
+        // 加载生涯统计
+        this.lifetimeShots = data.lifetimeShots;
+        this.lifetimeHits = data.lifetimeHits;
+        this.matchesPlayed = data.matchesPlayed;
+        initializePersonality();
     }
     
     /**
-     * 创建默认权重
+     * 恢复默认权重
      */
-    private Map<String, Double> createDefaultWeights() {
-        Map<String, Double> defaults = new HashMap<>();
-        
-        // 基础行为权重
-        defaults.put("chase", 0.9);     // 追击倾向
-        defaults.put("evade", 0.4);     // 躲避倾向
-        defaults.put("shoot", 0.85);    // 射击倾向
-        
-        // 策略权重
-        defaults.put("aggressive", 0.9); // 激进程度
-        defaults.put("defensive", 0.3);  // 防御程度
-        defaults.put("pattern_recognition", 0.6); // 模式识别
-        defaults.put("predict", 0.4);    // 预测能力
-        
-        // 侧移权重
-        defaults.put("strafe_left", 0.5);
-        defaults.put("strafe_right", 0.5);
+    private void resetWeights() {
+        for (Feature feature : Feature.VALUES) {
+            weights[feature.ordinal()] = feature.defaultValue;
+        }
+        Arrays.fill(playerPatterns, 0);
+        Arrays.fill(stateTransitions, 0);
         
         // 性格特性
-        defaults.put("personality_aggressive", aggressiveness);
-        defaults.put("personality_intelligence", intelligence);
-        defaults.put("personality_precision", precision);
-        
-        return defaults;
+        weights[Feature.PERSONALITY_AGGRESSIVE.ordinal()] = aggressiveness;
+        weights[Feature.PERSONALITY_INTELLIGENCE.ordinal()] = intelligence;
+        weights[Feature.PERSONALITY_PRECISION.ordinal()] = precision;
+    }
+
+    /**
+     * 权重转换为保存文件使用的 名称-数值 表，格式与旧版一致
+     */
+    private Map<String, Double> exportWeights() {
+        Map<String, Double> map = new HashMap<>();
+        for (Feature feature : Feature.VALUES) {
+            map.put(feature.key, weights[feature.ordinal()]);
+        }
+        BehaviorState[] states = BehaviorState.VALUES;
+        for (int i = 0; i < stateTransitions.length; i++) {
+            if (stateTransitions[i] != 0) {
+                map.put(STATE_CHANGE_PREFIX + states[i / STATE_COUNT] + "_to_" + states[i % STATE_COUNT],
+                        stateTransitions[i]);
+            }
+        }
+        return map;
+    }
+
+    private Map<String, Double> exportPatterns() {
+        Map<String, Double> map = new HashMap<>();
+        for (Pattern pattern : Pattern.VALUES) {
+            map.put(pattern.key, playerPatterns[pattern.ordinal()]);
+        }
+        return map;
+    }
+
+    /**
+     * 从保存文件的 名称-数值 表读取权重，忽略无法识别的名称
+     */
+    private void importWeights(Map<String, Double> map) {
+        for (Feature feature : Feature.VALUES) {
+            Double value = map.get(feature.key);
+            weights[feature.ordinal()] = value != null ? value : feature.defaultValue;
+        }
+        for (Map.Entry<String, Double> entry : map.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(STATE_CHANGE_PREFIX)) continue;
+            int split = key.indexOf("_to_", STATE_CHANGE_PREFIX.length());
+            if (split < 0) continue;
+            try {
+                BehaviorState from = BehaviorState.valueOf(key.substring(STATE_CHANGE_PREFIX.length(), split));
+                BehaviorState to = BehaviorState.valueOf(key.substring(split + 4));
+                stateTransitions[from.ordinal() * STATE_COUNT + to.ordinal()] = entry.getValue();
+            } catch (IllegalArgumentException ignored) {
+                // 已不存在的状态
+            }
+        }
+    }
+
+    private void importPatterns(Map<String, Double> map) {
+        for (Pattern pattern : Pattern.VALUES) {
+            Double value = map.get(pattern.key);
+            if (value != null) {
+                playerPatterns[pattern.ordinal()] = value;
+            }
+        }
     }
     
     /**
-     * 更新子弹位置
+     * 移除失效的子弹（子弹移动由 BulletPhysics 负责）
      */
     public void updateBullets() {
-        // 移除失效的子弹
-        bullets.removeIf(bullet -> !bullet.isActive());
+        for (int i = bullets.size() - 1; i >= 0; i--) {
+            EnemyBullet bullet = bullets.get(i);
+            if (!bullet.isActive()) {
+                bullets.remove(i);
+                bullet.release();
+            }
+        }
+    }
 
-        // 更新剩余子弹的位置
+    /**
+     * 回收所有子弹
+     */
+    public void clearBullets() {
         for (EnemyBullet bullet : bullets) {
-            bullet.updatePosition();
+            bullet.release();
         }
+        bullets.clear();
     }
     
     /**
@@ -1156,8 +1279,10 @@ public class AITank extends AbstractTank {
         
         // 更新命中率权重
         double hitRatio = lifetimeShots > 0 ? (double)lifetimeHits / lifetimeShots : 0;
-        weights.put("shot_accuracy", Math.min(1.0, weights.getOrDefault("shot_accuracy", 0.5) + 0.02));
-        weights.put("prediction_accuracy", Math.min(1.0, weights.getOrDefault("prediction_accuracy", 0.5) + 0.01));
+        int shotAccuracy = Feature.SHOT_ACCURACY.ordinal();
+        int predictionAccuracy = Feature.PREDICTION_ACCURACY.ordinal();
+        weights[shotAccuracy] = Math.min(1.0, weights[shotAccuracy] + 0.02);
+        weights[predictionAccuracy] = Math.min(1.0, weights[predictionAccuracy] + 0.01);
         
         // 保存高命中率的学习数据
         if (hitRatio > 0.4 && lifetimeShots > 20) {
@@ -1179,8 +1304,8 @@ public class AITank extends AbstractTank {
         double factor = victory ? 0.3 : -0.15;
         
         // 更新特定权重
-        weights.merge("game_sense", factor, Double::sum);
-        weights.merge("strategic", factor, Double::sum);
+        weights[Feature.GAME_SENSE.ordinal()] += factor;
+        weights[Feature.STRATEGIC.ordinal()] += factor;
         
         // 根据命中率调整精度特性
         double hitRatio = lifetimeShots > 0 ? (double)lifetimeHits / lifetimeShots : 0;
@@ -1235,9 +1360,9 @@ public class AITank extends AbstractTank {
         }
         
         // 更新权重
-        weights.put("personality_aggressive", aggressiveness);
-        weights.put("personality_intelligence", intelligence);
-        weights.put("personality_precision", precision);
+        weights[Feature.PERSONALITY_AGGRESSIVE.ordinal()] = aggressiveness;
+        weights[Feature.PERSONALITY_INTELLIGENCE.ordinal()] = intelligence;
+        weights[Feature.PERSONALITY_PRECISION.ordinal()] = precision;
     }
     
     /**
@@ -1251,6 +1376,7 @@ public class AITank extends AbstractTank {
      * 动态难度适应系统 - 根据当前关卡调整AI能力
      */
     public void adaptToDifficulty(int currentLevel) {
+        difficultyLevel = currentLevel;
         // 基础难度参数
         double baseDifficulty = 0.5;
         // 难度增长系数
@@ -1259,13 +1385,15 @@ public class AITank extends AbstractTank {
         double currentDifficulty = Math.min(0.95, baseDifficulty + (currentLevel - 1) * difficultyGrowth);
         
         // 根据难度调整AI特性
-        aggressiveness = Math.min(1.0, weights.getOrDefault("personality_aggressive", 0.7) + currentDifficulty * 0.3);
-        intelligence = Math.min(1.0, weights.getOrDefault("personality_intelligence", 0.6) + currentDifficulty * 0.4);
-        precision = Math.min(1.0, weights.getOrDefault("personality_precision", 0.8) + currentDifficulty * 0.2);
+        aggressiveness = Math.min(1.0, weights[Feature.PERSONALITY_AGGRESSIVE.ordinal()] + currentDifficulty * 0.3);
+        intelligence = Math.min(1.0, weights[Feature.PERSONALITY_INTELLIGENCE.ordinal()] + currentDifficulty * 0.4);
+        precision = Math.min(1.0, weights[Feature.PERSONALITY_PRECISION.ordinal()] + currentDifficulty * 0.2);
         
         // 调整行为权重
-        weights.put("shoot", Math.min(1.0, weights.getOrDefault("shoot", 0.85) + currentDifficulty * 0.15));
-        weights.put("predict", Math.min(1.0, weights.getOrDefault("predict", 0.4) + currentDifficulty * 0.3));
+        int shoot = Feature.SHOOT.ordinal();
+        int predict = Feature.PREDICT.ordinal();
+        weights[shoot] = Math.min(1.0, weights[shoot] + currentDifficulty * 0.15);
+        weights[predict] = Math.min(1.0, weights[predict] + currentDifficulty * 0.3);
         
         // 调整反应时间和行动频率
         actionDelay = Math.max(50, 100 - currentLevel * 5); // 越高级反应越快
@@ -1288,8 +1416,8 @@ public class AITank extends AbstractTank {
 
     @Override
     public void fire(PlayerTank player) {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFireTime >= fireInterval) {
+        long currentTime = now();
+        if (currentTime - lastFireTime >= FIRE_INTERVAL) {
             // 计算炮管前端位置 - 保证子弹从正前方射出
             int barrelLength = width / 2 + 5;
             int bulletX = (int) (x + width / 2 + Math.cos(angle) * barrelLength);
@@ -1307,7 +1435,8 @@ public class AITank extends AbstractTank {
             double randomSpread = (random.nextDouble() - 0.5) * spreadFactor;
             double fireAngle = angle + randomSpread + predictFactor;
             
-            EnemyBullet bullet = new EnemyBullet(bulletX, bulletY, fireAngle);
+            EnemyBullet bullet = bulletPool().acquireEnemy(bulletX, bulletY, fireAngle);
+            if (bullet == null) return; // 子弹池已满
             bullet.setMinCollisionDistance(30); // 设置最小碰撞检测距离
             bullets.add(bullet);
             lastFireTime = currentTime;
@@ -1339,11 +1468,24 @@ public class AITank extends AbstractTank {
     public void revive() {
         this.alive = true;
         this.health = 1; // 重置生命值
+        pathPlanner.invalidate();
     }
 
     @Override
     public Image getCurrentImage() {
-        return tankImage;
+        loadTankImage();
+        return sprite != null ? sprite.getFrame(getSpriteFrame()) : tankImage;
+    }
+
+    @Override
+    public SpriteAtlas getSprite() {
+        loadTankImage();
+        return sprite;
+    }
+
+    @Override
+    public int getSpriteFrame() {
+        return sprite != null ? sprite.animatedFrame(now()) : 0;
     }
     
     @Override
@@ -1351,39 +1493,6 @@ public class AITank extends AbstractTank {
         return this.angle;
     }
     
-    /**
-     * 绘制坦克
-     */
-    public void draw(Graphics g) {
-        if (!isAlive() || tankImage == null) return;
-        
-        Graphics2D g2d = (Graphics2D) g.create();
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        // 坦克中心点
-        int centerX = x + width / 2;
-        int centerY = y + height / 2;
-        
-        // 变换坐标系到坦克中心
-        g2d.translate(centerX, centerY);
-        
-        // 旋转 - 图片默认朝右，角度定义为0度朝右，直接使用当前角度
-        g2d.rotate(angle);
-        
-        // 绘制坦克
-        g2d.drawImage(tankImage, -width / 2, -height / 2, width, height, null);
-        
-        g2d.dispose();
-        
-        // 绘制子弹
-        drawBullets(g);
-    }
-
-    @Override
-    protected void drawTank(Graphics g) {
-
-    }
-
     /**
      * 绘制调试信息
      */
@@ -1413,15 +1522,6 @@ public class AITank extends AbstractTank {
         g2d.fillRect(-healthBarWidth/2, -height/2 - 10, (int)(healthBarWidth * health), healthBarHeight);
     }
     
-    /**
-     * 绘制子弹
-     */
-    public void drawBullets(Graphics g) {
-        for (EnemyBullet bullet : bullets) {
-            bullet.draw(g);
-        }
-    }
-    
     /**
      * 获取AI状态调试信息
      */
@@ -1471,18 +1571,14 @@ public class AITank extends AbstractTank {
                 final int explosionY = y + height/2;
                 final int explosionSize = Math.max(width, height) * 2;
                 
-                // 记录子弹并转移到孤儿子弹列表
-                List<EnemyBullet> activeBullets = new ArrayList<>(bullets);
-                bullets.clear();
-                
-                // 将子弹添加到PVPMode或PVEMode的孤儿子弹列表中
-                if (bullets != null && !bullets.isEmpty()) {}
+                // 回收剩余子弹
+                clearBullets();
                 
                 // 标记为死亡
                 alive = false;
                 
                 // 创建爆炸效果
-                ExplosionManager.getInstance().createExplosion(explosionX, explosionY, explosionSize);
+                explosions().createExplosion(explosionX, explosionY, explosionSize);
 
                 System.out.println("坦克被击毁，触发爆炸效果 at " + explosionX + "," + explosionY);
             }
@@ -1492,8 +1588,12 @@ public class AITank extends AbstractTank {
     /**
      * 高级学习系统 - 引入记忆和遗忘机制
      */
-    private Map<String, Double> shortTermMemory = new HashMap<>();
-    private Map<String, Double> longTermMemory = new HashMap<>();
+    // 情境编号 = ((距离档 * 2 + 玩家靠墙) * 2 + AI靠墙) * 3 + 血量档
+    private static final int SITUATION_COUNT = 3 * 2 * 2 * 3;
+    private final double[] shortTermMemory = new double[SITUATION_COUNT];
+    private final boolean[] hasShortTermMemory = new boolean[SITUATION_COUNT];
+    private final double[] longTermMemory = new double[SITUATION_COUNT];
+    private final boolean[] hasLongTermMemory = new boolean[SITUATION_COUNT];
 
     /**
      * 高级学习方法 - 整合短期记忆和长期记忆
@@ -1503,43 +1603,58 @@ public class AITank extends AbstractTank {
         learn(success, player);
         
         // 短期记忆学习 - 基于最近几次交互
-        String memoryKey = generateSituationKey(player);
+        int memoryKey = situationId(player);
         double result = success ? 1.0 : -0.5;
         
         // 更新短期记忆
-        shortTermMemory.merge(memoryKey, result, (old, val) -> old * 0.7 + val * 0.3);
+        if (hasShortTermMemory[memoryKey]) {
+            shortTermMemory[memoryKey] = shortTermMemory[memoryKey] * 0.7 + result * 0.3;
+        } else {
+            shortTermMemory[memoryKey] = result;
+            hasShortTermMemory[memoryKey] = true;
+        }
         
         // 将重要的短期记忆转移到长期记忆
-        shortTermMemory.forEach((key, value) -> {
-            if (Math.abs(value) > 0.7) { // 强烈的记忆会转入长期记忆
-                longTermMemory.merge(key, value * 0.3, (old, val) -> old * 0.9 + val * 0.1);
+        for (int i = 0; i < SITUATION_COUNT; i++) {
+            double value = shortTermMemory[i];
+            if (hasShortTermMemory[i] && Math.abs(value) > 0.7) { // 强烈的记忆会转入长期记忆
+                if (hasLongTermMemory[i]) {
+                    longTermMemory[i] = longTermMemory[i] * 0.9 + value * 0.3 * 0.1;
+                } else {
+                    longTermMemory[i] = value * 0.3;
+                    hasLongTermMemory[i] = true;
+                }
             }
-        });
+        }
         
         // 根据长期记忆调整策略权重
         updateWeightsFromMemory();
         
         // 定期清理短期记忆
         if (random.nextInt(20) == 0) {
-            shortTermMemory.entrySet().removeIf(entry -> Math.abs(entry.getValue()) < 0.3);
+            for (int i = 0; i < SITUATION_COUNT; i++) {
+                if (Math.abs(shortTermMemory[i]) < 0.3) {
+                    shortTermMemory[i] = 0;
+                    hasShortTermMemory[i] = false;
+                }
+            }
         }
     }
 
     /**
-     * 生成情境键 - 描述当前战斗情况
+     * 生成情境编号 - 描述当前战斗情况
      */
-    private String generateSituationKey(PlayerTank player) {
+    private int situationId(PlayerTank player) {
         double distance = calculateDistance(player);
-        String distanceKey = distance < 150 ? "close" : (distance < 300 ? "medium" : "far");
+        int distanceBand = distance < 150 ? 0 : (distance < 300 ? 1 : 2);
         
         boolean playerNearWall = isNearWall(player.getX(), player.getY(), player.getWidth(), player.getHeight());
         boolean aiNearWall = isNearWall(x, y, width, height);
         
         int healthDiff = (int)(health * 100) - player.getHealth();
-        String healthKey = healthDiff > 20 ? "advantage" : (healthDiff < -20 ? "disadvantage" : "equal");
+        int healthBand = healthDiff > 20 ? 0 : (healthDiff < -20 ? 1 : 2);
         
-        return distanceKey + "_" + (playerNearWall ? "pWall" : "pOpen") + 
-               "_" + (aiNearWall ? "aWall" : "aOpen") + "_" + healthKey;
+        return ((distanceBand * 2 + (playerNearWall ? 1 : 0)) * 2 + (aiNearWall ? 1 : 0)) * 3 + healthBand;
     }
 
     /**
@@ -1547,25 +1662,20 @@ public class AITank extends AbstractTank {
      */
     private void updateWeightsFromMemory() {
         // 将长期记忆中的成功经验转化为行为权重
-        longTermMemory.forEach((key, value) -> {
-            if (value > 0) {
-                if (key.startsWith("close")) {
-                    weights.merge("close_combat", value * 0.1, Double::sum);
-                } else if (key.startsWith("medium")) {
-                    weights.merge("mid_range_combat", value * 0.1, Double::sum);
-                } else if (key.startsWith("far")) {
-                    weights.merge("long_range_combat", value * 0.1, Double::sum);
-                }
-                
-                if (key.contains("pWall")) {
-                    weights.merge("target_near_wall", value * 0.1, Double::sum);
-                }
-                
-                if (key.contains("aWall") && value < 0) {
-                    weights.merge("avoid_wall_position", 0.1, Double::sum);
-                }
+        for (int i = 0; i < SITUATION_COUNT; i++) {
+            double value = longTermMemory[i];
+            if (!hasLongTermMemory[i] || value <= 0) continue;
+            
+            int distanceBand = i / 12;
+            boolean playerNearWall = (i / 6) % 2 == 1;
+            Feature rangeFeature = distanceBand == 0 ? Feature.CLOSE_COMBAT :
+                    (distanceBand == 1 ? Feature.MID_RANGE_COMBAT : Feature.LONG_RANGE_COMBAT);
+            weights[rangeFeature.ordinal()] += value * 0.1;
+            
+            if (playerNearWall) {
+                weights[Feature.TARGET_NEAR_WALL.ordinal()] += value * 0.1;
             }
-        });
+        }
     }
 
     /**
@@ -1586,14 +1696,18 @@ public class AITank extends AbstractTank {
         // 计算玩家朝向
         double playerAngle = player.getAngle();
         
-        // 计算侧翼位置 (90度角)
-        double flankAngle = playerAngle + Math.PI/2;
-        if (random.nextBoolean()) {
-            flankAngle = playerAngle - Math.PI/2;
+        // 定期重新选择侧翼方向和距离，避免目标每帧跳动导致反复寻路
+        long currentTime = now();
+        if (currentTime - flankChosenTime > FLANK_RESELECT_INTERVAL) {
+            flankSide = random.nextBoolean() ? 1 : -1;
+            flankDistance = 200 + random.nextInt(100);
+            flankChosenTime = currentTime;
         }
+
+        // 计算侧翼位置 (90度角)
+        double flankAngle = playerAngle + flankSide * Math.PI/2;
         
         // 计算侧翼目标位置
-        double flankDistance = 200 + random.nextInt(100);
         double targetX = player.getX() + Math.cos(flankAngle) * flankDistance;
         double targetY = player.getY() + Math.sin(flankAngle) * flankDistance;
         
@@ -1605,6 +1719,12 @@ public class AITank extends AbstractTank {
         this.angle = angleToPlayer;
     }
 
+    // 侧翼攻击相关变量
+    private static final long FLANK_RESELECT_INTERVAL = 2000;
+    private int flankSide = 1;
+    private int flankDistance = 250;
+    private long flankChosenTime = 0;
+
     // 伏击行为相关变量
     private boolean hasGoodAmbushPosition = false;
     private int ambushX = 0;
@@ -1652,8 +1772,9 @@ public class AITank extends AbstractTank {
                 if (testX >= 0 && testX < 800 - width && 
                     testY >= 0 && testY < 600 - height) {
                     
-                    // 检查是否靠近墙
-                    if (isNearWall(testX, testY, width, height)) {
+                    // 检查位置本身可达且靠近墙
+                    if (detector != null && detector.isPositionFree(testX, testY, width, height) &&
+                        isNearWall(testX, testY, width, height)) {
                         ambushX = testX;
                         ambushY = testY;
                         hasGoodAmbushPosition = true;
@@ -1704,15 +1825,16 @@ public class AITank extends AbstractTank {
             attackPlayer(player, calculateDistance(player), levelFactor * 1.4);
             
             // 反击一段时间后重置战术
-            if (System.currentTimeMillis() - baitingStartTime > 5000) {
+            if (now() - baitingStartTime > 5000) {
                 baitingPhase = 0;
-                baitingStartTime = System.currentTimeMillis();
+                baitingStartTime = now();
             }
         }
     }
     
     /**
      * 高级移动系统 - 移动到指定位置
+     * 有导航网格时沿A*路径逐个路径点移动，否则直接朝目标移动
      */
     private void moveToPosition(int targetX, int targetY, double speedFactor) {
         double dx = targetX - x;
@@ -1720,6 +1842,15 @@ public class AITank extends AbstractTank {
         double distance = Math.sqrt(dx * dx + dy * dy);
 
         if (distance > 5) { // 只有距离足够远才移动
+            NavigationGrid grid = null;
+            if (detector instanceof SimpleCollisionDetector) {
+                grid = ((SimpleCollisionDetector) detector).getNavigationGrid(width, height);
+            }
+            if (grid != null && pathPlanner.nextWaypoint(grid, x, y, targetX, targetY, waypoint)) {
+                followWaypoint(waypoint[0], waypoint[1], targetX, targetY, speedFactor);
+                return;
+            }
+
             // 计算移动角度
             double moveAngle = Math.atan2(dy, dx);
             
@@ -1741,6 +1872,34 @@ public class AITank extends AbstractTank {
         }
     }
 
+    /**
+     * 沿路径直线走向路径点，车身平滑转向移动方向；不会越过路径点
+     */
+    private void followWaypoint(int waypointX, int waypointY, int targetX, int targetY, double speedFactor) {
+        double dx = waypointX - x;
+        double dy = waypointY - y;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        double moveAngle = Math.atan2(dy, dx);
+        smoothRotateToAngle(moveAngle, 0.1);
+
+        double step = Math.min(distance, currentSpeed * speedFactor);
+        int newX = (int) Math.round(x + Math.cos(moveAngle) * step);
+        int newY = (int) Math.round(y + Math.sin(moveAngle) * step);
+        if (checkCollision(newX, newY)) {
+            x = newX;
+            y = newY;
+        } else if (newX != x && checkCollision(newX, y)) {
+            // 取整误差导致擦到墙角时沿墙滑动
+            x = newX;
+        } else if (newY != y && checkCollision(x, newY)) {
+            y = newY;
+        } else {
+            // 路径被挡住（例如网格与实际边界不一致），丢弃路径后尝试绕行
+            pathPlanner.invalidate();
+            smartPathfinding(targetX, targetY, speedFactor);
+        }
+    }
+
     /**
      * 智能路径寻找 - 简化版本
      */
@@ -1842,13 +2001,13 @@ public class AITank extends AbstractTank {
      */
     private void advancedBehaviorDecision(PlayerTank player, double distance, double threatLevel, int currentLevel) {
         // 冷却检查
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         if (currentTime - lastStateChangeTime < STATE_CHANGE_COOLDOWN) {
             return;
         }
         
         // 高级状态选择 - 考虑更多因素
-        double[] stateWeights = new double[BehaviorState.values().length];
+        Arrays.fill(stateWeights, 0);
         
         // 根据距离计算各状态权重
         if (distance < 150) {
@@ -1884,9 +2043,9 @@ public class AITank extends AbstractTank {
         }
         
         // 应用学习权重
-        stateWeights[BehaviorState.ATTACKING.ordinal()] *= weights.getOrDefault("chase", 0.9);
-        stateWeights[BehaviorState.EVADING.ordinal()] *= weights.getOrDefault("evade", 0.4);
-        stateWeights[BehaviorState.STRATEGIC.ordinal()] *= weights.getOrDefault("strategic", 0.5);
+        stateWeights[BehaviorState.ATTACKING.ordinal()] *= weights[Feature.CHASE.ordinal()];
+        stateWeights[BehaviorState.EVADING.ordinal()] *= weights[Feature.EVADE.ordinal()];
+        stateWeights[BehaviorState.STRATEGIC.ordinal()] *= weights[Feature.STRATEGIC.ordinal()];
         
         // 找出权重最高的状态
         int maxIndex = 0;
@@ -1897,7 +2056,7 @@ public class AITank extends AbstractTank {
         }
         
         // 设置新状态
-        BehaviorState newState = BehaviorState.values()[maxIndex];
+        BehaviorState newState = BehaviorState.VALUES[maxIndex];
         
         // 如果状态改变，记录时间
         if (currentBehaviorState != newState) {
@@ -1906,8 +2065,7 @@ public class AITank extends AbstractTank {
             lastStateChangeTime = currentTime;
             
             // 记录状态变化到学习系统
-            String stateKey = "state_change_" + previousState + "_to_" + currentBehaviorState;
-            weights.merge(stateKey, 0.1, Double::sum);
+            stateTransitions[previousState.ordinal() * STATE_COUNT + currentBehaviorState.ordinal()] += 0.1;
         }
     }
 
@@ -1933,7 +2091,7 @@ public class AITank extends AbstractTank {
                     if (baitingPhase == -1) {
                        
                         baitingPhase = 0;
-                        baitingStartTime = System.currentTimeMillis();
+                        baitingStartTime = now();
                     }
                     baitingTactic(player, levelFactor);
                     break;
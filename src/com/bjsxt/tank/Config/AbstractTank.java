@@ -3,12 +3,8 @@ package src.com.bjsxt.tank.Config;
 import src.com.bjsxt.tank.InterFace.CollisionDetector;
 import src.com.bjsxt.tank.InterFace.Tank;
 
-import javax.swing.*;
 import java.awt.*;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
-import java.io.File;
+import java.util.Random;
 
 public abstract class AbstractTank implements Tank {
     protected CollisionDetector collisionDetector;
@@ -20,72 +16,60 @@ public abstract class AbstractTank implements Tank {
     protected int speed = 5;     // 移动速度
     protected static final long FIRE_INTERVAL = 500; // 开火间隔
 
-    // 添加爆炸效果相关字段
-    protected List<Image> explosionFrames;
-    protected boolean exploding = false;
-    protected int explosionFrame = 0;
-    protected long lastFrameTime = 0;
-    protected static final int EXPLOSION_FRAME_DELAY = 100; // 每帧间隔100毫秒
+    // 上一逻辑帧的位置，供快照在两帧之间插值
+    protected int prevX, prevY;
+    // 单帧位移超过该值视为瞬移（重生、重置），不做插值
+    private static final int MAX_INTERPOLATION_DISTANCE = 50;
+
+    // 所属世界的子弹池和爆炸效果，未指定时使用全局实例
+    private BulletPool bulletPool;
+    private ExplosionManager explosionManager;
+    // 所属世界的模拟时钟和随机数，未指定时使用系统时间和独立的随机数
+    private SimClock clock;
+    protected Random random = new Random();
 
     public AbstractTank(int x, int y,
                         int width, int height,
                         int health,CollisionDetector collisionDetector) {
         this.x = x;
         this.y = y;
+        this.prevX = x;
+        this.prevY = y;
         this.width = width;
         this.height = height;
         this.health = health;
         this.alive = true;
         this.direction = 0; // 默认朝上
         this.collisionDetector = collisionDetector;
+    }
 
-        // 初始化爆炸效果图像
-        loadExplosionImage();
+    /**
+     * 指定坦克所属世界的子弹池和爆炸效果管理器，多个世界同时运行时互不影响
+     */
+    public void attachTo(BulletPool bulletPool, ExplosionManager explosionManager) {
+        this.bulletPool = bulletPool;
+        this.explosionManager = explosionManager;
     }
 
-    // 加载爆炸图像
-    private void loadExplosionImage() {
-        try {
-            explosionFrames = new ArrayList<>();
-            
-            // 使用更明确的路径
-            URL url = getClass().getResource("/src/Images/Videos/explotion.gif");
-            
-            // 如果资源路径加载失败，尝试绝对路径
-            if (url == null) {
-                String projectDir = System.getProperty("user.dir");
-                File file = new File(projectDir + "/src/Images/Videos/explotion.gif");
-                if (file.exists()) {
-                    url = file.toURI().toURL();
-                } else {
-                    System.err.println("文件不存在: " + file.getAbsolutePath());
-                }
-            }
-            
-            if (url == null) {
-                System.err.println("爆炸效果图片不存在，所有路径都已尝试");
-                return;
-            }
-            
-            // 加载GIF并存储每一帧
-            ImageIcon icon = new ImageIcon(url);
-            Image explosionImage = icon.getImage();
-            
-            // 确保图像已完全加载
-            MediaTracker tracker = new MediaTracker(new JPanel());
-            tracker.addImage(explosionImage, 0);
-            try {
-                tracker.waitForID(0);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-            // 添加图像
-            explosionFrames.add(explosionImage);
-
-        } catch (Exception e) {
-            System.err.println("无法加载爆炸效果图像: " + e.getMessage());
-            e.printStackTrace();
-        }
+    /**
+     * 指定坦克所属世界的模拟时钟和随机数，坦克的计时和随机决策都来自这里，相同种子和输入得到相同结果
+     */
+    public void attachTo(SimClock clock, Random random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    // 当前时间（毫秒）：有模拟时钟时按逻辑帧计算
+    protected long now() {
+        return clock != null ? clock.millis() : System.currentTimeMillis();
+    }
+
+    protected BulletPool bulletPool() {
+        return bulletPool != null ? bulletPool : BulletPool.getInstance();
+    }
+
+    protected ExplosionManager explosions() {
+        return explosionManager != null ? explosionManager : ExplosionManager.getInstance();
     }
 
     @Override
@@ -166,75 +150,10 @@ public abstract class AbstractTank implements Tank {
             int centerY = y + height / 2;
             int explosionSize = Math.max(width, height) * 2; // 爆炸尺寸是坦克的2倍
             
-            ExplosionManager.getInstance().createExplosion(centerX, centerY, explosionSize);
-        }
-    }
-
-    // 更新爆炸效果
-    protected void updateExplosion() {
-        if (exploding && explosionFrames != null && !explosionFrames.isEmpty()) {
-            long currentTime = System.currentTimeMillis();
-            // 爆炸持续时间1.5秒
-            if (currentTime - lastFrameTime > 1500) {
-                exploding = false; // 结束爆炸效果
-            }
-        }
-    }
-
-    // 绘制爆炸效果
-    protected void drawExplosion(Graphics g) {
-        if (exploding && explosionFrames != null && !explosionFrames.isEmpty()) {
-            // 增大爆炸尺寸使其更明显
-            Image explosionImage = explosionFrames.get(0);
-            
-            // 计算爆炸效果的绘制位置和尺寸
-            int drawX = x - width/2; // 居中
-            int drawY = y - height/2; // 居中
-            int drawWidth = width * 2; // 双倍大小
-            int drawHeight = height * 2; // 双倍大小
-            
-            // 使用Graphics2D以便添加更多视觉效果
-            Graphics2D g2d = (Graphics2D) g.create();
-            
-            // 添加半透明效果
-            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.8f));
-            
-            // 绘制爆炸图像
-            g2d.drawImage(explosionImage, drawX, drawY, drawWidth, drawHeight, null);
-            
-            // 添加红色闪光效果
-            g2d.setColor(new Color(255, 50, 50, 100));
-            g2d.fillOval(drawX, drawY, drawWidth, drawHeight);
-            
-            g2d.dispose();
-
-        }
-    }
-
-    // 检查爆炸效果是否已结束
-    public boolean explosionsFinished() {
-        return !exploding;
-    }
-
-    // 在子类的draw方法中调用此方法来绘制爆炸效果
-    public void draw(Graphics g) {
-        // 如果坦克存活，绘制坦克
-        if (isAlive()) {
-            drawTank(g);
-        }
-        
-        // 如果坦克已死亡，绘制爆炸效果
-        if (!isAlive()) {
-            drawExplosion(g);
+            explosions().createExplosion(centerX, centerY, explosionSize);
         }
-
-        // 更新爆炸状态
-        updateExplosion();
     }
 
-    // 子类应该实现此方法来绘制坦克
-    protected abstract void drawTank(Graphics g);
-
     public abstract int getDirection();
 
     public abstract Rectangle getCollisionBounds();
@@ -247,11 +166,50 @@ public abstract class AbstractTank implements Tank {
         return null;
     }
 
+    // 预旋转精灵图集，没有时返回 null，绘制时回退到逐帧旋转
+    public SpriteAtlas getSprite() {
+        return null;
+    }
+
+    // 当前动画帧在图集中的序号
+    public int getSpriteFrame() {
+        return 0;
+    }
+
     public void setPosition(int x, int y) {
         this.x = x;
         this.y = y;
     }
 
+    /**
+     * 在每个逻辑帧开始时记录位置，供渲染插值使用
+     */
+    public void savePreviousPosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    /**
+     * 位置插值，位移过大时视为瞬移直接使用当前位置
+     */
+    static int interpolate(int previous, int current, double alpha) {
+        if (Math.abs(current - previous) > MAX_INTERPOLATION_DISTANCE) return current;
+        return (int) Math.round(previous + (current - previous) * alpha);
+    }
+
+    /**
+     * 以中心点为轴旋转绘制坦克图像
+     */
+    public static void drawRotated(Graphics g, Image image, int centerX, int centerY,
+                                   int width, int height, double angle) {
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.translate(centerX, centerY);
+        g2d.rotate(angle);
+        g2d.drawImage(image, -width / 2, -height / 2, width, height, null);
+        g2d.dispose();
+    }
+
     public abstract void revive();
 
     protected boolean isColliding(int newX, int newY, int width, int height) {
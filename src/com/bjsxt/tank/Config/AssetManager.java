@@ -0,0 +1,271 @@
+package src.com.bjsxt.tank.Config;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * 图片资源管理
+ * 启动时扫描 /src/Images 下的所有图片，在后台线程池中并行解码并转换为与屏幕兼容的图像；
+ * 加载完成后所有图片和动画帧都从内存中共享获取，游戏过程中不再访问类路径
+ */
+public class AssetManager {
+    // 图片资源根目录
+    public static final String IMAGE_ROOT = "/src/Images";
+    // 爆炸动画
+    public static final String EXPLOSION_PATH = "/src/Images/Videos/explotion.gif";
+
+    private static AssetManager instance;
+
+    // 解码任务，键为资源路径；同一资源只解码一次，使用方等待对应任务完成
+    private final Map<String, CompletableFuture<Asset>> assets = new ConcurrentHashMap<>();
+    // 缩放后的帧，键为 资源路径@宽x高
+    private final Map<String, List<Image>> scaledFrames = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    /**
+     * 已解码的资源：原始文件内容（用于创建保留GIF动画的图标）和所有帧
+     */
+    private static final class Asset {
+        static final Asset EMPTY = new Asset(new byte[0], Collections.emptyList());
+
+        final byte[] data;
+        final List<Image> frames;
+
+        Asset(byte[] data, List<Image> frames) {
+            this.data = data;
+            this.frames = frames;
+        }
+    }
+
+    // 单例模式
+    public static synchronized AssetManager getInstance() {
+        if (instance == null) {
+            instance = new AssetManager();
+        }
+        return instance;
+    }
+
+    private AssetManager() {
+    }
+
+    /**
+     * 在后台并行预加载所有图片资源，立即返回
+     * @return 全部加载完成时结束的任务
+     */
+    public CompletableFuture<Void> preloadAll() {
+        List<String> paths = discover();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            tasks[i] = load(paths.get(i));
+        }
+        System.out.println("开始预加载图片资源: " + paths.size() + " 个");
+        return CompletableFuture.allOf(tasks);
+    }
+
+    /**
+     * 获取资源的所有帧（GIF展开为多帧，其他图片为单帧），资源仍在加载时等待其完成
+     * @return 共享的只读列表，加载失败时为空列表
+     */
+    public List<Image> getFrames(String path) {
+        return load(path).join().frames;
+    }
+
+    /**
+     * 获取资源的第一帧
+     * @return 图片，加载失败时返回 null
+     */
+    public Image getImage(String path) {
+        List<Image> frames = getFrames(path);
+        return frames.isEmpty() ? null : frames.get(0);
+    }
+
+    /**
+     * 获取缩放到指定尺寸的所有帧
+     */
+    public List<Image> getScaledFrames(String path, int width, int height) {
+        return scaledFrames.computeIfAbsent(path + "@" + width + "x" + height, key -> {
+            List<Image> result = new ArrayList<>();
+            for (Image frame : getFrames(path)) {
+                result.add(scale(frame, width, height));
+            }
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    /**
+     * 获取缩放到指定尺寸的第一帧
+     * @return 图片，加载失败时返回 null
+     */
+    public Image getScaledImage(String path, int width, int height) {
+        List<Image> frames = getScaledFrames(path, width, height);
+        return frames.isEmpty() ? null : frames.get(0);
+    }
+
+    /**
+     * 创建图标；GIF从内存中的文件内容创建，保留动画效果
+     * @return 图标，加载失败时返回 null
+     */
+    public ImageIcon getIcon(String path) {
+        Asset asset = load(path).join();
+        if (asset.frames.isEmpty()) return null;
+        if (asset.frames.size() > 1) {
+            return new ImageIcon(asset.data);
+        }
+        return new ImageIcon(asset.frames.get(0));
+    }
+
+    private CompletableFuture<Asset> load(String path) {
+        return assets.computeIfAbsent(path,
+                p -> CompletableFuture.supplyAsync(() -> decode(p), getExecutor()));
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "AssetLoader-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * 扫描图片目录，支持从文件目录和jar包中运行
+     */
+    private static List<String> discover() {
+        List<String> paths = new ArrayList<>();
+        URL root = AssetManager.class.getResource(IMAGE_ROOT);
+        if (root == null) {
+            System.err.println("找不到图片目录: " + IMAGE_ROOT);
+            return paths;
+        }
+        try {
+            if ("jar".equals(root.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) root.openConnection();
+                connection.setUseCaches(false);
+                String prefix = IMAGE_ROOT.substring(1) + "/";
+                try (JarFile jar = connection.getJarFile()) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(prefix) && isImage(name)) {
+                            paths.add("/" + name);
+                        }
+                    }
+                }
+            } else {
+                Path dir = Paths.get(root.toURI());
+                try (Stream<Path> files = Files.walk(dir)) {
+                    files.filter(Files::isRegularFile)
+                         .map(file -> IMAGE_ROOT + "/" + dir.relativize(file).toString().replace('\\', '/'))
+                         .filter(AssetManager::isImage)
+                         .forEach(paths::add);
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            System.err.println("扫描图片目录失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static boolean isImage(String name) {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".png") || lower.endsWith(".gif") || lower.endsWith(".jpg");
+    }
+
+    private static Asset decode(String path) {
+        URL url = AssetManager.class.getResource(path);
+        if (url == null) {
+            System.err.println("图片不存在: " + path);
+            return Asset.EMPTY;
+        }
+        try {
+            byte[] data;
+            try (InputStream input = url.openStream()) {
+                data = input.readAllBytes();
+            }
+            List<Image> frames = new ArrayList<>();
+            if (path.toLowerCase().endsWith(".gif")) {
+                // 使用GifDecoder解析GIF帧
+                GifDecoder decoder = new GifDecoder();
+                decoder.read(new ByteArrayInputStream(data));
+                for (int i = 0; i < decoder.getFrameCount(); i++) {
+                    frames.add(toCompatible(decoder.getFrame(i)));
+                }
+            } else {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+                if (image != null) {
+                    frames.add(toCompatible(image));
+                }
+            }
+            return new Asset(data, Collections.unmodifiableList(frames));
+        } catch (Exception e) {
+            System.err.println("加载图片失败: " + path + " " + e.getMessage());
+            e.printStackTrace();
+            return Asset.EMPTY;
+        }
+    }
+
+    private static BufferedImage scale(Image source, int width, int height) {
+        BufferedImage scaled = createCompatibleImage(width, height);
+        Graphics2D g = scaled.createGraphics();
+        // 设置高质量缩放
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    private static BufferedImage toCompatible(BufferedImage source) {
+        BufferedImage image = createCompatibleImage(source.getWidth(), source.getHeight());
+        Graphics2D g = image.createGraphics();
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * 创建与屏幕兼容的半透明图像，便于硬件加速贴图；无显示环境时使用普通ARGB图像
+     */
+    public static BufferedImage createCompatibleImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            try {
+                return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                        .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            } catch (Exception e) {
+                System.err.println("无法创建兼容图像: " + e.getMessage());
+            }
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,70 @@
+package src.com.bjsxt.tank.Config;
+
+import src.com.bjsxt.tank.InterFace.Bullet;
+
+/**
+ * 子弹物理引擎（PVE与PVP模式共用）
+ * 把子弹当作扫掠圆做连续碰撞检测，求出精确的碰撞时刻和法线，
+ * 同一帧内可以连续反弹多次，高速子弹也不会穿过细墙
+ */
+public class BulletPhysics {
+    // 单帧内最多处理的反弹次数，防止在夹角处无限循环
+    private static final int MAX_BOUNCES_PER_TICK = 4;
+    // 反弹后与墙面保持的微小间隙
+    private static final double SKIN = 0.01;
+
+    private final SimpleCollisionDetector detector;
+    private final double[] normal = new double[2]; // 复用的法线缓存
+
+    public BulletPhysics(SimpleCollisionDetector detector) {
+        this.detector = detector;
+    }
+
+    /**
+     * 推进子弹一帧：移动、碰撞、反弹
+     */
+    public void step(Bullet bullet) {
+        if (bullet == null || !bullet.isActive()) return;
+
+        double x = bullet.getCenterX();
+        double y = bullet.getCenterY();
+        double dirX = bullet.getDirX();
+        double dirY = bullet.getDirY();
+        double radius = bullet.getRadius();
+        double remaining = bullet.getSpeed();
+
+        for (int i = 0; i <= MAX_BOUNCES_PER_TICK && remaining > 0; i++) {
+            double t = detector.sweepCircle(x, y, dirX, dirY, remaining, radius, normal);
+            if (t < 0) {
+                // 本帧剩余路程无碰撞
+                x += dirX * remaining;
+                y += dirY * remaining;
+                break;
+            }
+
+            // 移动到碰撞点
+            double move = Math.max(0, t - SKIN);
+            x += dirX * move;
+            y += dirY * move;
+
+            if (!bullet.canBounce()) {
+                bullet.moveTo(x, y);
+                bullet.deactivate();
+                return;
+            }
+
+            // 沿法线反射方向
+            double dot = dirX * normal[0] + dirY * normal[1];
+            dirX -= 2 * dot * normal[0];
+            dirY -= 2 * dot * normal[1];
+
+            // 反弹会损失速度，剩余路程按比例缩短
+            int oldSpeed = bullet.getSpeed();
+            bullet.bounce();
+            remaining = (remaining - t) * bullet.getSpeed() / oldSpeed;
+        }
+
+        bullet.setDirection(dirX, dirY);
+        bullet.moveTo(x, y);
+    }
+}
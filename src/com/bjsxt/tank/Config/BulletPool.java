@@ -0,0 +1,181 @@
+package src.com.bjsxt.tank.Config;
+
+import java.awt.*;
+
+/**
+ * 子弹池
+ * 所有射击方共享一块固定容量的存储，子弹状态按字段分别存放在并列数组中（结构数组）；
+ * 每个槽位预先创建一个 PlayerBullet 和一个 EnemyBullet 视图对象，发射和回收子弹时不再分配内存。
+ * 只能在模拟线程上使用；同时运行的多个游戏世界各自创建子弹池。
+ */
+public class BulletPool {
+    // 子弹所属方
+    public static final int OWNER_PLAYER = 0;
+    public static final int OWNER_ENEMY = 1;
+
+    static final int MAX_BOUNCE = 6; // 最大反弹次数
+    static final int BULLET_LIFETIME = 600; // 子弹最大存活时间10秒（按每秒60个逻辑帧计算）
+
+    private static BulletPool instance;
+
+    private final int capacity;
+
+    // 子弹中心坐标
+    final double[] x;
+    final double[] y;
+    // 飞行方向（单位向量）和角度
+    final double[] dirX;
+    final double[] dirY;
+    final double[] angle;
+    // 已飞行距离和开始参与碰撞检测的最小距离
+    final double[] travel;
+    final double[] minCollision;
+    final int[] speed;
+    final int[] bounce;
+    final int[] lifetime; // 剩余存活帧数
+    final int[] owner;
+    final Color[] color;
+    final boolean[] active;    // 子弹是否有效（失效后等待所属坦克回收）
+    private final boolean[] inUse; // 槽位是否已分配
+
+    // 空闲槽位栈
+    private final int[] freeSlots;
+    private int freeCount;
+
+    // 每个槽位的视图对象
+    private final PlayerBullet[] playerViews;
+    private final EnemyBullet[] enemyViews;
+
+    // 全局子弹池，没有指定所属世界的坦克使用
+    public static synchronized BulletPool getInstance() {
+        if (instance == null) {
+            instance = new BulletPool(ConfigTool.getBulletPoolCapacity());
+        }
+        return instance;
+    }
+
+    public BulletPool(int capacity) {
+        this.capacity = capacity;
+        x = new double[capacity];
+        y = new double[capacity];
+        dirX = new double[capacity];
+        dirY = new double[capacity];
+        angle = new double[capacity];
+        travel = new double[capacity];
+        minCollision = new double[capacity];
+        speed = new int[capacity];
+        bounce = new int[capacity];
+        lifetime = new int[capacity];
+        owner = new int[capacity];
+        color = new Color[capacity];
+        active = new boolean[capacity];
+        inUse = new boolean[capacity];
+        freeSlots = new int[capacity];
+        playerViews = new PlayerBullet[capacity];
+        enemyViews = new EnemyBullet[capacity];
+        for (int i = 0; i < capacity; i++) {
+            playerViews[i] = new PlayerBullet(this, i);
+            enemyViews[i] = new EnemyBullet(this, i);
+        }
+        clear();
+    }
+
+    /**
+     * 发射一颗玩家子弹
+     * @return 子弹，池已满时返回 null
+     */
+    public PlayerBullet acquirePlayer(int centerX, int centerY, double angle) {
+        int slot = allocate(centerX, centerY, OWNER_PLAYER, PlayerBullet.DEFAULT_SPEED, PlayerBullet.colorFor(ConfigTool.getSelectedTank()));
+        if (slot < 0) return null;
+        PlayerBullet bullet = playerViews[slot];
+        bullet.setAngle(angle);
+        return bullet;
+    }
+
+    /**
+     * 发射一颗敌方子弹
+     * @return 子弹，池已满时返回 null
+     */
+    public EnemyBullet acquireEnemy(int centerX, int centerY, double angle) {
+        int slot = allocate(centerX, centerY, OWNER_ENEMY, EnemyBullet.INITIAL_SPEED, EnemyBullet.COLOR);
+        if (slot < 0) return null;
+        EnemyBullet bullet = enemyViews[slot];
+        bullet.setAngle(angle);
+        return bullet;
+    }
+
+    private int allocate(int centerX, int centerY, int bulletOwner, int initialSpeed, Color bulletColor) {
+        if (freeCount == 0) return -1;
+        int slot = freeSlots[--freeCount];
+        inUse[slot] = true;
+        active[slot] = true;
+        x[slot] = centerX;
+        y[slot] = centerY;
+        travel[slot] = 0;
+        minCollision[slot] = EnemyBullet.DEFAULT_MIN_COLLISION_DISTANCE;
+        speed[slot] = initialSpeed;
+        bounce[slot] = 0;
+        lifetime[slot] = BULLET_LIFETIME;
+        owner[slot] = bulletOwner;
+        color[slot] = bulletColor;
+        return slot;
+    }
+
+    /**
+     * 归还槽位，调用后不能再使用该槽位对应的子弹对象
+     */
+    void release(int slot) {
+        if (!inUse[slot]) return;
+        inUse[slot] = false;
+        active[slot] = false;
+        color[slot] = null;
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * 回收所有子弹，在游戏重置、切换关卡等丢弃全部坦克时调用
+     */
+    public void clear() {
+        freeCount = 0;
+        for (int slot = capacity - 1; slot >= 0; slot--) {
+            inUse[slot] = false;
+            active[slot] = false;
+            color[slot] = null;
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    // 经过一个逻辑帧，存活时间耗尽后自动失效
+    void updateLifetime(int slot) {
+        if (active[slot] && --lifetime[slot] <= 0) {
+            active[slot] = false;
+        }
+    }
+
+    // 记录一次反弹（计数并损失速度）
+    void bounce(int slot) {
+        if (bounce[slot] >= MAX_BOUNCE) {
+            active[slot] = false;
+            return;
+        }
+        bounce[slot]++;
+        // 每次反弹略微减速，模拟能量损失
+        speed[slot] = Math.max(5, (int) (speed[slot] * 0.95));
+    }
+
+    void moveTo(int slot, double centerX, double centerY) {
+        // 累计飞行距离
+        travel[slot] += Math.hypot(centerX - x[slot], centerY - y[slot]);
+        x[slot] = centerX;
+        y[slot] = centerY;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 当前已分配的子弹数量
+    public int getUsedCount() {
+        return capacity - freeCount;
+    }
+}
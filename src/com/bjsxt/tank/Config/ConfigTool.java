@@ -1,17 +1,45 @@
 package src.com.bjsxt.tank.Config;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ConfigTool {
     private static final String DATA_DIR = System.getProperty("user.dir")
             + File.separator + "Data";
     private static final String CONFIG_FILE = "TankConfig.properties";
+    // 修改后延迟写盘的时间，期间的多次修改合并为一次写入
+    private static final long FLUSH_DELAY_MS = 500;
 
     protected static Properties props = new Properties();
 
+    // 有未写盘的修改
+    private static final AtomicBoolean dirty = new AtomicBoolean();
+    // 已安排了延迟写盘
+    private static final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private static ScheduledExecutorService writer;
+    // 解析后的内存状态，读取配置都从这里取
+    private static GameState state;
+
     static {
         loadConfig();
+        state = new GameState(props);
+        // 状态修改时写回配置文件
+        state.addPropertyChangeListener(event -> {
+            props.setProperty(event.getPropertyName(), String.valueOf(event.getNewValue()));
+            saveConfig();
+        });
+    }
+
+    public static GameState getState() {
+        return state;
     }
 
     //加载配置文件
@@ -50,88 +78,163 @@ public class ConfigTool {
         props.setProperty("beatNum","0");   //击败数
         props.setProperty("tankWhetherSelected","false"); //是否已经选择坦克
         props.setProperty("selectedTank", "null"); //选择的坦克
+        props.setProperty("PVEActiveRendering", "false"); //PVE模式是否使用主动渲染
+        props.setProperty("PVPActiveRendering", "false"); //PVP模式是否使用主动渲染
+        props.setProperty("frameRate", "0"); //渲染帧率上限，0表示跟随显示器刷新率
+        props.setProperty("bulletPoolCapacity", "4096"); //同时存在的子弹数量上限
+        props.setProperty("PVPSiegeMode", "false"); //PVP围攻模式：大量敌人沿流场向玩家包围
+        props.setProperty("siegeEnemyCount", "200"); //围攻模式每波敌人数量
+        props.setProperty("simulationSeed", "0"); //确定性模式随机种子，0表示每局随机
+        props.setProperty("recordReplays", "true"); //记录人机对战回放到Data/Replays
+        props.setProperty("historySeconds", "10"); //击杀回放和回看保留的秒数（最多60），0表示关闭
+    }
+
+    //保存配置文件：内存中的配置已经生效，只标记需要写盘，由后台线程延迟合并写入
+    public static void saveConfig() {
+        dirty.set(true);
+        if (flushScheduled.compareAndSet(false, true)) {
+            getWriter().schedule(() -> {
+                flushScheduled.set(false);
+                flush();
+            }, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
     }
 
-    //保存配置文件
-    public static void saveConfig() {
+    //立即把未写盘的修改写入配置文件
+    public static synchronized void flush() {
+        if (!dirty.getAndSet(false)) return;
+        // Properties 的复制是同步的，得到一致的快照
+        Properties snapshot = (Properties) props.clone();
+
         File configDir = new File(DATA_DIR);
         if (!configDir.exists()) {
             configDir.mkdirs();
         }
 
-        try (OutputStream output = new FileOutputStream(
-                DATA_DIR + File.separator + CONFIG_FILE)) {
-            props.store(output, "Tank War Configuration");
+        // 先写临时文件再替换，写入中途退出不会留下半个配置文件
+        Path target = new File(DATA_DIR, CONFIG_FILE).toPath();
+        Path temp = target.resolveSibling(CONFIG_FILE + ".tmp");
+        try (OutputStream output = new FileOutputStream(temp.toFile())) {
+            snapshot.store(output, "Tank War Configuration");
         } catch (IOException ex) {
             System.err.println("无法保存配置文件: " + ex.getMessage());
+            dirty.set(true);
+            return;
+        }
+        try {
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            System.err.println("无法保存配置文件: " + ex.getMessage());
+            dirty.set(true);
         }
     }
 
+    private static synchronized ScheduledExecutorService getWriter() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ConfigWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // 退出游戏时写入还没写盘的修改
+            Runtime.getRuntime().addShutdownHook(new Thread(ConfigTool::flush, "ConfigFlush"));
+        }
+        return writer;
+    }
+
     // Get方法
     public static int getOurScore() {
-        return Integer.parseInt(props.getProperty("ourScore"));
+        return state.getOurScore();
     }
     public static int getEnemyScore() {
-        return Integer.parseInt(props.getProperty("enemyScore"));
+        return state.getEnemyScore();
     }
     public static int getLevel() {
-        return Integer.parseInt(props.getProperty("level"));
+        return state.getLevel();
     }
     public static int getBeatNum() {
-        return Integer.parseInt(props.getProperty("beatNum"));
+        return state.getBeatNum();
     }
 
     public static boolean isTankSelected() {
-        return Boolean.parseBoolean(props.getProperty("tankWhetherSelected"));
+        return state.isTankSelected();
     }
     public static int getSelectedTank() {
-        switch (props.getProperty("selectedTank")) {
-            case "红坦克" -> {return 1;}
-            case "蓝坦克" -> {return 2;}
-            case "绿坦克" -> {return 3;}
-            case "黄坦克" -> {return 4;}
-            default -> {return 1;}  //默认为红
-        }
+        return state.getSelectedTank();
     }
 
     //set方法
-    public static void setLevel(String level) {
-        props.setProperty("level", level);
-        saveConfig();
+    public static void setLevel(int level) {
+        state.setLevel(level);
     }
-    public static void setOurScore(String score) {
-        props.setProperty("ourScore", score);
-        saveConfig();
+    public static void setOurScore(int score) {
+        state.setOurScore(score);
     }
-    public static void setEnemyScore(String score) {
-        props.setProperty("enemyScore", score);
-        saveConfig();
+    public static void setEnemyScore(int score) {
+        state.setEnemyScore(score);
     }
-    public static void setBeatNum(String num) {
-        props.setProperty("beatNum", num);
-        saveConfig();
+    public static void setBeatNum(int num) {
+        state.setBeatNum(num);
     }
 
     public static void setTankSelection(String tankType) {
-        props.setProperty("tankWhetherSelected", "true");
-        props.setProperty("selectedTank", tankType);
-        saveConfig();
+        state.setTankSelection(tankType);
     }
 
     public static void resetTankSelection() {
-        props.setProperty("tankWhetherSelected", "false");
-        props.setProperty("selectedTank", "null");
-        saveConfig();
+        state.setTankSelection("null");
     }
 
     public static boolean isDebugMode() {
-        String debugMode = props.getProperty("debugMode");
-        return debugMode != null && debugMode.equalsIgnoreCase("true");
+        return state.isDebugMode();
+    }
+
+    // 渲染方式：为true时该模式使用主动渲染（BufferStrategy），否则使用Swing重绘
+    public static boolean isActiveRendering(String mode) {
+        return state.isActiveRendering(mode);
+    }
+
+    // 渲染帧率上限，未设置或不大于0时跟随显示器刷新率
+    public static int getFrameRate() {
+        return state.getFrameRate();
+    }
+
+    // 子弹池容量，未设置或无效时使用默认值
+    public static int getBulletPoolCapacity() {
+        return state.getBulletPoolCapacity();
+    }
+
+    // PVP是否为围攻模式
+    public static boolean isSiegeMode() {
+        return state.isSiegeMode();
+    }
+
+    // 围攻模式每波敌人数量
+    public static int getSiegeEnemyCount() {
+        return state.getSiegeEnemyCount();
+    }
+
+    // 固定的随机种子，0表示每局使用新的随机种子
+    public static long getSimulationSeed() {
+        return state.getSimulationSeed();
+    }
+
+    // 是否记录人机对战回放
+    public static boolean isRecordReplays() {
+        return state.isRecordReplays();
+    }
+
+    // 世界历史保留的秒数，0表示不记录
+    public static int getHistorySeconds() {
+        return state.getHistorySeconds();
     }
 
     // 添加重置方法
     public static void resetGameStats() {
-        setBeatNum("0");
-        saveConfig();
+        setBeatNum(0);
     }
 }
@@ -2,11 +2,9 @@ package src.com.bjsxt.tank.Config;
 
 import src.com.bjsxt.tank.InterFace.CollisionDetector;
 
-import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import static src.com.bjsxt.tank.Structure.ModeCardLayOut.PVPModeHeight;
 import static src.com.bjsxt.tank.Structure.ModeCardLayOut.PVPModeWidth;
@@ -16,7 +14,8 @@ public class EnemyTank extends AbstractTank {
     private double angle = 0; // 当前朝向角度，0为向右，逆时针为正（数学坐标系）
     private final String tankPath = "/src/Images/TankImage/EnemyTank/tankR.gif";
     private Image tankImage;
-    private final Random random = new Random();
+    private SpriteAtlas sprite; // 预旋转图集（GIF的所有帧）
+    private boolean imagesLoaded;
     private double moveSpeed = 9; // 移动速度
     private double rotateStep = Math.toRadians(6); // 旋转步长，每次转动6度
     private int moveDuration = 0; // 移动持续帧数
@@ -44,23 +43,26 @@ public class EnemyTank extends AbstractTank {
     private int lastPlayerX = 0;
     private int lastPlayerY = 0;
 
+    // 围攻模式流场移动
+    private static final double FLOW_SPEED = 3;
+    private static final double FLOW_ROTATE_STEP = Math.toRadians(15);
+    private final double[] flowDirection = new double[2];
+
     public EnemyTank(int x, int y, CollisionDetector collisionDetector) {
         super(x, y, 66, 66, 1, collisionDetector); // 敌方坦克1滴血
-        loadTankImage();
         this.bullets = new ArrayList<>();
         this.lastX = x;
         this.lastY = y;
     }
 
+    // 第一次绘制时才加载图像，无界面运行时不解码图片
     private void loadTankImage() {
+        if (imagesLoaded) return;
+        imagesLoaded = true;
         try {
-            java.net.URL url = getClass().getResource(tankPath);
-            if (url == null) {
-                System.err.println("图片不存在: " + tankPath);
-                return;
-            }
-            ImageIcon icon = new ImageIcon(url);
-            tankImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
+            sprite = SpriteAtlas.get(width, height, tankPath);
+            if (sprite == null) return;
+            tankImage = sprite.getFrame(0);
         } catch (Exception e) {
             System.err.println("无法加载坦克图像: " + e.getMessage());
         }
@@ -89,8 +91,8 @@ public class EnemyTank extends AbstractTank {
             } else if (randValue < 90) {
                 changeMovementMode(MovementMode.PATROL);
                 // 设置随机巡逻点
-                patrolPointX = random.nextInt(PVPModeWidth - 100) + 50;
-                patrolPointY = random.nextInt(PVPModeHeight - 100) + 50;
+                patrolPointX = random.nextInt(Math.max(1, areaWidth() - 100)) + 50;
+                patrolPointY = random.nextInt(Math.max(1, areaHeight() - 100)) + 50;
             } else {
                 changeMovementMode(MovementMode.AVOID_WALL);
             }
@@ -187,8 +189,8 @@ public class EnemyTank extends AbstractTank {
         if (distanceToTarget < 30) {
             // 已到达目标点附近，重新设置巡逻点或切换模式
             if (random.nextBoolean()) {
-                patrolPointX = random.nextInt(PVPModeWidth - 100) + 50;
-                patrolPointY = random.nextInt(PVPModeHeight - 100) + 50;
+                patrolPointX = random.nextInt(Math.max(1, areaWidth() - 100)) + 50;
+                patrolPointY = random.nextInt(Math.max(1, areaHeight() - 100)) + 50;
             } else {
                 changeMovementMode(MovementMode.RANDOM);
             }
@@ -260,9 +262,27 @@ public class EnemyTank extends AbstractTank {
     }
 
     public Image getTankImage() {
+        loadTankImage();
         return tankImage;
     }
 
+    @Override
+    public Image getCurrentImage() {
+        loadTankImage();
+        return sprite != null ? sprite.getFrame(getSpriteFrame()) : tankImage;
+    }
+
+    @Override
+    public SpriteAtlas getSprite() {
+        loadTankImage();
+        return sprite;
+    }
+
+    @Override
+    public int getSpriteFrame() {
+        return sprite != null ? sprite.animatedFrame(now()) : 0;
+    }
+
     public double getAngle() {
         return angle;
     }
@@ -279,6 +299,38 @@ public class EnemyTank extends AbstractTank {
         tryToFire();
     }
 
+    /**
+     * 围攻模式：沿流场向玩家前进，流场无法给出方向时退回普通移动
+     */
+    public void update(FlowField flowField) {
+        if (!alive) return;
+        if (flowField != null && flowField.sampleDirection(x, y, flowDirection)) {
+            flowMovement(flowDirection[0], flowDirection[1]);
+        } else {
+            updateMovement();
+        }
+        updateBullets();
+        tryToFire();
+    }
+
+    // 转向流场方向，朝向大致正确时前进
+    private void flowMovement(double dirX, double dirY) {
+        double targetAngle = (Math.atan2(dirX, -dirY) + 2 * Math.PI) % (2 * Math.PI);
+        double angleDiff = targetAngle - angle;
+        // 标准化到[-π, π]
+        if (angleDiff > Math.PI) angleDiff -= 2 * Math.PI;
+        if (angleDiff < -Math.PI) angleDiff += 2 * Math.PI;
+
+        double rotationAmount = Math.min(Math.abs(angleDiff), FLOW_ROTATE_STEP);
+        angle += angleDiff > 0 ? rotationAmount : -rotationAmount;
+        angle = (angle + 2 * Math.PI) % (2 * Math.PI);
+
+        if (Math.abs(angleDiff) < Math.PI / 4) {
+            moveSpeed = FLOW_SPEED;
+            moveForward();
+        }
+    }
+
     public void update(PlayerTank player) {
         if (!alive || player == null) return;
         updateMovement();
@@ -290,7 +342,7 @@ public class EnemyTank extends AbstractTank {
         if (!alive) return;
         // 随机决定是否射击
         if (random.nextInt(FIRE_CHANCE) == 0) {
-            long currentTime = System.currentTimeMillis();
+            long currentTime = now();
             if (currentTime - lastFireTime >= FIRE_INTERVAL) {
                 fire();
                 lastFireTime = currentTime;
@@ -302,7 +354,7 @@ public class EnemyTank extends AbstractTank {
     private void tryToFire(PlayerTank player) {
         if (!alive || player == null || !player.isAlive()) return;
 
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         if (currentTime - lastFireTime < FIRE_INTERVAL) {
             return; // 冷却中
         }
@@ -399,7 +451,7 @@ public class EnemyTank extends AbstractTank {
 
     @Override
     public void fire(PlayerTank player) {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         if (currentTime - lastFireTime >= FIRE_INTERVAL) {
             // 计算炮管前端位置,正确的计算方式
             int barrelLength = width / 2 + 5;
@@ -420,37 +472,63 @@ public class EnemyTank extends AbstractTank {
             double fireAngle = angle + randomSpread;
             
             // 创建子弹
-            EnemyBullet bullet = new EnemyBullet(bulletX, bulletY, fireAngle);
+            EnemyBullet bullet = bulletPool().acquireEnemy(bulletX, bulletY, fireAngle);
+            if (bullet == null) return; // 子弹池已满
             bullet.setMinCollisionDistance(30); // 设置最小碰撞检测距离
             bullets.add(bullet);
             lastFireTime = currentTime;
         }
     }
 
+    /**
+     * 移除失效的子弹（子弹移动由 BulletPhysics 负责）
+     */
     public void updateBullets() {
         for (int i = bullets.size() - 1; i >= 0; i--) {
             EnemyBullet bullet = bullets.get(i);
-            bullet.updatePosition();
 
             // 检查是否超出边界或已失活
             if (!bullet.isActive() || isOutOfBounds(bullet)) {
                 bullets.remove(i);
+                bullet.release();
             }
         }
     }
 
+    /**
+     * 回收所有子弹
+     */
+    public void clearBullets() {
+        for (EnemyBullet bullet : bullets) {
+            bullet.release();
+        }
+        bullets.clear();
+    }
+
     private boolean isOutOfBounds(EnemyBullet bullet) {
         Rectangle bounds = bullet.getCollisionBounds();
         if (bounds == null) return true;
         return bounds.x < 0 || bounds.y < 0 ||
-                bounds.x > PVPModeWidth ||
-                bounds.y > PVPModeHeight;
+                bounds.x > areaWidth() ||
+                bounds.y > areaHeight();
     }
 
-    public void drawBullets(Graphics g) {
-        for (EnemyBullet bullet : bullets) {
-            bullet.draw(g);
+    // 游戏区域尺寸：优先取碰撞检测器中的区域，没有界面时也能得到正确的边界
+    private int areaWidth() {
+        Dimension size = gameAreaSize();
+        return size != null ? size.width : PVPModeWidth;
+    }
+
+    private int areaHeight() {
+        Dimension size = gameAreaSize();
+        return size != null ? size.height : PVPModeHeight;
+    }
+
+    private Dimension gameAreaSize() {
+        if (collisionDetector instanceof SimpleCollisionDetector) {
+            return ((SimpleCollisionDetector) collisionDetector).getGameAreaSize();
         }
+        return null;
     }
 
     @Override
@@ -486,15 +564,14 @@ public class EnemyTank extends AbstractTank {
                 final int explosionY = y + height / 2;
                 final int explosionSize = Math.max(width, height) * 2;
 
-                // 记录子弹并转移到孤儿子弹列表
-                List<EnemyBullet> activeBullets = new ArrayList<>(bullets);
-                bullets.clear();
+                // 回收剩余子弹（需要保留的子弹应在此之前转移到孤儿子弹列表）
+                clearBullets();
 
                 // 标记为死亡
                 alive = false;
 
                 // 创建爆炸效果
-                ExplosionManager.getInstance().createExplosion(explosionX, explosionY, explosionSize);
+                explosions().createExplosion(explosionX, explosionY, explosionSize);
 
             }
         }
@@ -517,32 +594,4 @@ public class EnemyTank extends AbstractTank {
         }
         return bullets;
     }
-
-    @Override
-    protected void drawTank(Graphics g) {
-        if (tankImage != null) {
-            Graphics2D g2d = (Graphics2D) g.create();
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            int centerX = x + width / 2;
-            int centerY = y + height / 2;
-
-            g2d.translate(centerX, centerY);
-            g2d.rotate(angle);
-            g2d.drawImage(tankImage, -width / 2, -height / 2, width, height, null);
-
-            g2d.dispose();
-        }
-    }
-
-    @Override
-    public void draw(Graphics g) {
-        super.draw(g); // 确保调用父类的draw方法
-
-        // 只有在坦克存活时才绘制坦克图像和子弹
-        if (isAlive()) {
-            // 绘制子弹
-            drawBullets(g);
-        }
-    }
 }
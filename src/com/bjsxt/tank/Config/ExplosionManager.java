@@ -1,51 +1,47 @@
 package src.com.bjsxt.tank.Config;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+/**
+ * 爆炸效果
+ * 每个游戏世界一个实例，动画按逻辑帧推进；爆炸动画帧在第一次创建爆炸时才加载
+ */
 public class ExplosionManager {
     private static ExplosionManager instance;
+    // 每帧动画持续的逻辑帧数（每秒60个逻辑帧时约200毫秒）
+    private static final int FRAME_TICKS = 12;
     private List<Explosion> activeExplosions = new ArrayList<>();
     private List<Image> explosionFrames = new ArrayList<>();
     private boolean framesLoaded = false;
+    private boolean framesRequested = false;
     
-    // 单例模式
-    public static ExplosionManager getInstance() {
+    // 全局实例，没有指定所属世界的坦克使用
+    public static synchronized ExplosionManager getInstance() {
         if (instance == null) {
             instance = new ExplosionManager();
         }
         return instance;
     }
     
-    private ExplosionManager() {
-        loadExplosionFrames();
+    public ExplosionManager() {
     }
     
     // 加载爆炸动画帧
     private void loadExplosionFrames() {
+        if (framesRequested) return;
+        framesRequested = true;
         try {
-            URL url = getClass().getResource("/src/Images/Videos/explotion.gif");
-            if (url == null) {
-                System.err.println("找不到爆炸GIF文件");
-                return;
-            }
-            
-            // 使用GifDecoder解析GIF帧
-            GifDecoder decoder = new GifDecoder();
-            decoder.read(url.openStream());
-            
             // 指定一个标准大小
             int standardSize = 66;
-            // 使用缩放版本而不是原始帧
-            List<BufferedImage> scaledFrames = decoder.getAllScaledFrames(standardSize, standardSize);
-            explosionFrames.addAll(scaledFrames);
-            
-            if (!explosionFrames.isEmpty()) {
-                Image firstFrame = explosionFrames.get(0);
+            // 使用资源缓存中共享的缩放帧，GIF只解码一次
+            explosionFrames = AssetManager.getInstance().getScaledFrames(
+                    AssetManager.EXPLOSION_PATH, standardSize, standardSize);
+            if (explosionFrames.isEmpty()) {
+                System.err.println("找不到爆炸GIF文件");
+                return;
             }
 
             framesLoaded = true;
@@ -56,7 +52,8 @@ public class ExplosionManager {
     }
     
     // 在指定位置创建爆炸
-    public void createExplosion(int x, int y, int size) {
+    public synchronized void createExplosion(int x, int y, int size) {
+        loadExplosionFrames();
         if (!framesLoaded || explosionFrames.isEmpty()) {
             System.out.println("爆炸帧未加载，无法创建爆炸效果");
             return;
@@ -66,8 +63,8 @@ public class ExplosionManager {
         activeExplosions.add(explosion);
     }
     
-    // 更新所有爆炸
-    public void update() {
+    // 更新所有爆炸，每个逻辑帧调用一次
+    public synchronized void update() {
         Iterator<Explosion> iterator = activeExplosions.iterator();
         while (iterator.hasNext()) {
             Explosion explosion = iterator.next();
@@ -79,17 +76,35 @@ public class ExplosionManager {
     }
     
     // 绘制所有爆炸
-    public void draw(Graphics g) {
+    public synchronized void draw(Graphics g) {
         for (Explosion explosion : activeExplosions) {
             explosion.draw(g);
         }
     }
+
+    // 把当前爆炸帧加入世界快照
+    public synchronized void addToSnapshot(WorldSnapshot.Builder builder) {
+        for (Explosion explosion : activeExplosions) {
+            explosion.addToSnapshot(builder);
+        }
+    }
     
+    // 把当前爆炸帧记入历史，按下标遍历不创建迭代器
+    public synchronized void addToHistory(WorldHistory history) {
+        for (int i = 0; i < activeExplosions.size(); i++) {
+            activeExplosions.get(i).addToHistory(history);
+        }
+    }
+
+    public synchronized int getActiveCount() {
+        return activeExplosions.size();
+    }
+
     /**
      * 清除所有活跃的爆炸效果
      * 在游戏重置或结束时调用
      */
-    public void clearAllExplosions() {
+    public synchronized void clearAllExplosions() {
         activeExplosions.clear();
     }
     
@@ -98,21 +113,18 @@ public class ExplosionManager {
         private int x, y;
         private int size;
         private int currentFrame = 0;
-        private long lastFrameTime;
-        private static final int FRAME_DURATION = 200; // 每帧持续200毫秒
+        private int ticks = 0; // 当前动画帧已持续的逻辑帧数
         
         public Explosion(int x, int y, int size) {
             this.x = x;
             this.y = y;
             this.size = size;
-            this.lastFrameTime = System.currentTimeMillis();
         }
         
         public void update() {
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - lastFrameTime > FRAME_DURATION) {
+            if (++ticks >= FRAME_TICKS) {
                 currentFrame++;
-                lastFrameTime = currentTime;
+                ticks = 0;
             }
         }
         
@@ -135,5 +147,19 @@ public class ExplosionManager {
             // 绘制主爆炸图像 - 不指定宽高，使用原始大小
             g.drawImage(frame, drawX, drawY, null);
         }
+
+        public void addToSnapshot(WorldSnapshot.Builder builder) {
+            if (isFinished() || explosionFrames.isEmpty()) return;
+
+            Image frame = explosionFrames.get(currentFrame);
+            builder.addExplosion(frame, x - frame.getWidth(null) / 2, y - frame.getHeight(null) / 2);
+        }
+
+        public void addToHistory(WorldHistory history) {
+            if (isFinished() || explosionFrames.isEmpty()) return;
+
+            Image frame = explosionFrames.get(currentFrame);
+            history.addExplosion(frame, x - frame.getWidth(null) / 2, y - frame.getHeight(null) / 2);
+        }
     }
 }
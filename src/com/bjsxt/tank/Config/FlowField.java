@@ -0,0 +1,132 @@
+package src.com.bjsxt.tank.Config;
+
+import java.util.Arrays;
+
+/**
+ * 流场导航
+ * 在导航网格上从目标点（通常是玩家）出发做一次最短路扩展，得到每个节点到目标的距离；
+ * 任意数量的坦克只需查看所在节点周围8个邻居即可得到前进方向，不再各自寻路。
+ * 目标所在节点不变时不重新计算
+ */
+public class FlowField {
+    // 直行和对角移动代价（近似 1 : √2）
+    private static final int STRAIGHT_COST = 5;
+    private static final int DIAGONAL_COST = 7;
+    private static final int BUCKETS = DIAGONAL_COST + 1;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final double INV_SQRT2 = 1 / Math.sqrt(2);
+    // 8个相邻方向，前4个为直行，后4个为对角
+    private static final int[] DC = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DR = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final double[] DIR_X = {1, -1, 0, 0, INV_SQRT2, INV_SQRT2, -INV_SQRT2, -INV_SQRT2};
+    private static final double[] DIR_Y = {0, 0, 1, -1, INV_SQRT2, -INV_SQRT2, INV_SQRT2, -INV_SQRT2};
+
+    private NavigationGrid grid;
+    private int targetNode = -1;
+    private int[] distance = new int[0];
+
+    // 环形桶队列（Dial算法）：代价是小整数，按距离分桶即可按序扩展，不需要堆
+    private final int[][] buckets = new int[BUCKETS][16];
+    private final int[] bucketSize = new int[BUCKETS];
+
+    /**
+     * 以目标位置重新计算流场；网格和目标节点都没变时直接返回
+     * @return 是否重新计算
+     */
+    public boolean update(NavigationGrid grid, int targetX, int targetY) {
+        if (grid == null) return false;
+        int target = grid.nearestNode(targetX, targetY);
+        if (grid == this.grid && target == targetNode) return false;
+
+        this.grid = grid;
+        this.targetNode = target;
+        if (distance.length != grid.getNodeCount()) {
+            distance = new int[grid.getNodeCount()];
+        }
+        Arrays.fill(distance, UNREACHABLE);
+        if (target >= 0) {
+            expandFrom(target);
+        }
+        return true;
+    }
+
+    private void expandFrom(int target) {
+        int cols = grid.getCols();
+        Arrays.fill(bucketSize, 0);
+        distance[target] = 0;
+        push(0, target);
+        int pending = 1;
+        for (int d = 0; pending > 0; d++) {
+            int b = d % BUCKETS;
+            // 扩展过程中可能向当前桶之外的桶加入节点，但不会加回当前桶
+            for (int i = 0; i < bucketSize[b]; i++) {
+                int node = buckets[b][i];
+                pending--;
+                if (distance[node] != d) continue; // 已被更短的距离更新过
+                int col = node % cols, row = node / cols;
+                for (int k = 0; k < 8; k++) {
+                    int nc = col + DC[k], nr = row + DR[k];
+                    if (!grid.isWalkable(nc, nr)) continue;
+                    // 对角移动不能切过墙角
+                    if (k >= 4 && (!grid.isWalkable(nc, row) || !grid.isWalkable(col, nr))) continue;
+                    int next = nr * cols + nc;
+                    int nd = d + (k >= 4 ? DIAGONAL_COST : STRAIGHT_COST);
+                    if (nd < distance[next]) {
+                        distance[next] = nd;
+                        push(nd % BUCKETS, next);
+                        pending++;
+                    }
+                }
+            }
+            bucketSize[b] = 0;
+        }
+    }
+
+    private void push(int bucket, int node) {
+        if (bucketSize[bucket] == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], buckets[bucket].length * 2);
+        }
+        buckets[bucket][bucketSize[bucket]++] = node;
+    }
+
+    /**
+     * 查询坦克（左上角坐标）在流场中的前进方向
+     * @param out 输出单位方向向量
+     * @return 已在目标处或无法到达目标时返回 false
+     */
+    public boolean sampleDirection(int x, int y, double[] out) {
+        if (grid == null) return false;
+        int node = grid.nearestNode(x, y);
+        if (node < 0 || distance[node] == UNREACHABLE || distance[node] == 0) return false;
+
+        int cols = grid.getCols();
+        int col = node % cols, row = node / cols;
+        int best = -1;
+        int bestDistance = distance[node];
+        for (int k = 0; k < 8; k++) {
+            int nc = col + DC[k], nr = row + DR[k];
+            if (!grid.isWalkable(nc, nr)) continue;
+            if (k >= 4 && (!grid.isWalkable(nc, row) || !grid.isWalkable(col, nr))) continue;
+            int d = distance[nr * cols + nc];
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = k;
+            }
+        }
+        if (best < 0) return false;
+        out[0] = DIR_X[best];
+        out[1] = DIR_Y[best];
+        return true;
+    }
+
+    /**
+     * 坦克位置到目标的路径距离（像素，近似值）
+     * @return 无法到达时返回 -1
+     */
+    public int getDistance(int x, int y) {
+        if (grid == null) return -1;
+        int node = grid.nearestNode(x, y);
+        if (node < 0 || distance[node] == UNREACHABLE) return -1;
+        return distance[node] * NavigationGrid.CELL_SIZE / STRAIGHT_COST;
+    }
+}
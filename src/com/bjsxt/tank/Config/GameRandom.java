@@ -0,0 +1,70 @@
+package src.com.bjsxt.tank.Config;
+
+import java.util.Random;
+
+/**
+ * 可拆分、可保存状态的随机数生成器（SplitMix64）
+ * 同一个种子总是产生相同的序列；split() 派生出独立的子序列分给各个坦克，
+ * 一辆坦克多取几次随机数不会改变其他坦克和地图生成的结果。状态只有一个 long，可以随快照保存和恢复
+ */
+public class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // 不能写初始值：父类构造函数会先调用 setSeed()，字段初始化在其后执行会覆盖种子
+    private long state;
+
+    /**
+     * 以当前时间生成种子
+     */
+    public GameRandom() {
+        this(newSeed());
+    }
+
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * 生成一个新的随机种子
+     */
+    public static long newSeed() {
+        return mix64(System.nanoTime() ^ Thread.currentThread().getId() * GOLDEN_GAMMA);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        state = seed;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * 派生一个独立的子生成器
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong());
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,227 @@
+package src.com.bjsxt.tank.Config;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.Properties;
+
+/**
+ * 游戏设置和进度的内存状态
+ * 启动时从配置文件解析一次，之后读取都是字段访问；修改时通知监听者，
+ * 由 ConfigTool 监听并写回配置文件，配置文件只用于持久化
+ */
+public class GameState {
+    // 属性名，同时也是配置文件中的键
+    public static final String LEVEL = "level";
+    public static final String OUR_SCORE = "ourScore";
+    public static final String ENEMY_SCORE = "enemyScore";
+    public static final String BEAT_NUM = "beatNum";
+    public static final String TANK_SELECTED = "tankWhetherSelected";
+    public static final String SELECTED_TANK = "selectedTank";
+
+    private static final String[] TANK_NAMES = {"红坦克", "蓝坦克", "绿坦克", "黄坦克"};
+
+    private final PropertyChangeSupport listeners = new PropertyChangeSupport(this);
+
+    // 进度，游戏中会修改
+    private volatile int level;
+    private volatile int ourScore;
+    private volatile int enemyScore;
+    private volatile int beatNum;
+    private volatile boolean tankSelected;
+    private volatile int selectedTank; // 1红 2蓝 3绿 4黄
+    private volatile String selectedTankName;
+
+    // 设置，只在启动时读取
+    private final boolean debugMode;
+    private final boolean pveActiveRendering;
+    private final boolean pvpActiveRendering;
+    private final int frameRate;
+    private final int bulletPoolCapacity;
+    private final boolean siegeMode;
+    private final int siegeEnemyCount;
+    private final long simulationSeed;
+    private final boolean recordReplays;
+    private final int historySeconds;
+
+    GameState(Properties props) {
+        level = parseInt(props, LEVEL, 1);
+        ourScore = parseInt(props, OUR_SCORE, 0);
+        enemyScore = parseInt(props, ENEMY_SCORE, 0);
+        beatNum = parseInt(props, BEAT_NUM, 0);
+        tankSelected = parseBoolean(props, TANK_SELECTED);
+        selectedTankName = props.getProperty(SELECTED_TANK, "null");
+        selectedTank = tankIndex(selectedTankName);
+
+        debugMode = parseBoolean(props, "debugMode");
+        pveActiveRendering = parseBoolean(props, "PVEActiveRendering");
+        pvpActiveRendering = parseBoolean(props, "PVPActiveRendering");
+        frameRate = parseInt(props, "frameRate", 0);
+        int capacity = parseInt(props, "bulletPoolCapacity", 4096);
+        bulletPoolCapacity = capacity > 0 ? capacity : 4096;
+        siegeMode = parseBoolean(props, "PVPSiegeMode");
+        siegeEnemyCount = Math.max(1, parseInt(props, "siegeEnemyCount", 200));
+        simulationSeed = parseLong(props, "simulationSeed", 0L);
+        recordReplays = parseBoolean(props, "recordReplays", true);
+        historySeconds = Math.min(60, Math.max(0, parseInt(props, "historySeconds", 10)));
+    }
+
+    private static int parseInt(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long parseLong(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean parseBoolean(Properties props, String key) {
+        return parseBoolean(props, key, false);
+    }
+
+    private static boolean parseBoolean(Properties props, String key, boolean defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null) return defaultValue;
+        return value.trim().equalsIgnoreCase("true");
+    }
+
+    private static int tankIndex(String name) {
+        for (int i = 0; i < TANK_NAMES.length; i++) {
+            if (TANK_NAMES[i].equals(name)) return i + 1;
+        }
+        return 1; //默认为红
+    }
+
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        listeners.addPropertyChangeListener(listener);
+    }
+
+    public void addPropertyChangeListener(String property, PropertyChangeListener listener) {
+        listeners.addPropertyChangeListener(property, listener);
+    }
+
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        listeners.removePropertyChangeListener(listener);
+    }
+
+    public void removePropertyChangeListener(String property, PropertyChangeListener listener) {
+        listeners.removePropertyChangeListener(property, listener);
+    }
+
+    // Get方法
+    public int getLevel() {
+        return level;
+    }
+
+    public int getOurScore() {
+        return ourScore;
+    }
+
+    public int getEnemyScore() {
+        return enemyScore;
+    }
+
+    public int getBeatNum() {
+        return beatNum;
+    }
+
+    public boolean isTankSelected() {
+        return tankSelected;
+    }
+
+    public int getSelectedTank() {
+        return selectedTank;
+    }
+
+    public String getSelectedTankName() {
+        return selectedTankName;
+    }
+
+    public boolean isDebugMode() {
+        return debugMode;
+    }
+
+    public boolean isActiveRendering(String mode) {
+        switch (mode) {
+            case "PVE":
+                return pveActiveRendering;
+            case "PVP":
+                return pvpActiveRendering;
+            default:
+                return false;
+        }
+    }
+
+    public int getFrameRate() {
+        return frameRate;
+    }
+
+    public int getBulletPoolCapacity() {
+        return bulletPoolCapacity;
+    }
+
+    public boolean isSiegeMode() {
+        return siegeMode;
+    }
+
+    public int getSiegeEnemyCount() {
+        return siegeEnemyCount;
+    }
+
+    public long getSimulationSeed() {
+        return simulationSeed;
+    }
+
+    public boolean isRecordReplays() {
+        return recordReplays;
+    }
+
+    public int getHistorySeconds() {
+        return historySeconds;
+    }
+
+    // set方法，值变化时通知监听者
+    public void setLevel(int level) {
+        int old = this.level;
+        this.level = level;
+        listeners.firePropertyChange(LEVEL, old, level);
+    }
+
+    public void setOurScore(int score) {
+        int old = this.ourScore;
+        this.ourScore = score;
+        listeners.firePropertyChange(OUR_SCORE, old, score);
+    }
+
+    public void setEnemyScore(int score) {
+        int old = this.enemyScore;
+        this.enemyScore = score;
+        listeners.firePropertyChange(ENEMY_SCORE, old, score);
+    }
+
+    public void setBeatNum(int num) {
+        int old = this.beatNum;
+        this.beatNum = num;
+        listeners.firePropertyChange(BEAT_NUM, old, num);
+    }
+
+    public void setTankSelection(String tankName) {
+        String old = this.selectedTankName;
+        boolean wasSelected = this.tankSelected;
+        this.selectedTankName = tankName;
+        this.selectedTank = tankIndex(tankName);
+        this.tankSelected = !"null".equals(tankName);
+        listeners.firePropertyChange(SELECTED_TANK, old, tankName);
+        listeners.firePropertyChange(TANK_SELECTED, wasSelected, tankSelected);
+    }
+}
@@ -0,0 +1,161 @@
+package src.com.bjsxt.tank.Config;
+
+import src.com.bjsxt.tank.InterFace.CollisionDetector;
+
+/**
+ * 坦克导航网格
+ * 每个节点代表坦克左上角可以停留的一个位置（按 CELL_SIZE 采样），
+ * 节点可通行表示坦克碰撞框放在该位置时不与墙体和边界相交。
+ * 每关墙体确定后构建一次，之后只读，可以被多个寻路器共享
+ */
+public class NavigationGrid {
+    // 节点间距（像素）
+    public static final int CELL_SIZE = 8;
+    // 目标点落在墙内时，向外搜索可通行节点的最大圈数
+    private static final int SNAP_RADIUS = 6;
+    // 浮点坐标取整时的容差
+    private static final double EPSILON = 1e-9;
+
+    private final int cols;
+    private final int rows;
+    private final int tankWidth;
+    private final int tankHeight;
+    private final boolean[] walkable;
+
+    private NavigationGrid(int cols, int rows, int tankWidth, int tankHeight) {
+        this.cols = cols;
+        this.rows = rows;
+        this.tankWidth = tankWidth;
+        this.tankHeight = tankHeight;
+        this.walkable = new boolean[cols * rows];
+    }
+
+    /**
+     * 用碰撞检测器逐个节点检测坦克碰撞框，生成可通行网格
+     */
+    public static NavigationGrid build(CollisionDetector detector, int areaWidth, int areaHeight,
+                                       int tankWidth, int tankHeight) {
+        int cols = Math.max(1, (areaWidth - tankWidth) / CELL_SIZE + 1);
+        int rows = Math.max(1, (areaHeight - tankHeight) / CELL_SIZE + 1);
+        NavigationGrid grid = new NavigationGrid(cols, rows, tankWidth, tankHeight);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                grid.walkable[row * cols + col] =
+                        !detector.isColliding(col * CELL_SIZE, row * CELL_SIZE, tankWidth, tankHeight);
+            }
+        }
+        return grid;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getNodeCount() {
+        return walkable.length;
+    }
+
+    public int getTankWidth() {
+        return tankWidth;
+    }
+
+    public int getTankHeight() {
+        return tankHeight;
+    }
+
+    public boolean isWalkable(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows && walkable[row * cols + col];
+    }
+
+    public boolean isWalkable(int node) {
+        return walkable[node];
+    }
+
+    // 节点对应的坦克左上角像素坐标
+    public int nodeX(int node) {
+        return (node % cols) * CELL_SIZE;
+    }
+
+    public int nodeY(int node) {
+        return (node / cols) * CELL_SIZE;
+    }
+
+    /**
+     * 离像素位置最近的可通行节点
+     * @return 节点编号，附近没有可通行节点时返回 -1
+     */
+    public int nearestNode(int x, int y) {
+        int col = Math.max(0, Math.min(cols - 1, Math.round(x / (float) CELL_SIZE)));
+        int row = Math.max(0, Math.min(rows - 1, Math.round(y / (float) CELL_SIZE)));
+        if (walkable[row * cols + col]) {
+            return row * cols + col;
+        }
+        // 由近到远按圈搜索
+        for (int radius = 1; radius <= SNAP_RADIUS; radius++) {
+            int best = -1;
+            int bestDist = Integer.MAX_VALUE;
+            for (int dr = -radius; dr <= radius; dr++) {
+                for (int dc = -radius; dc <= radius; dc++) {
+                    if (Math.abs(dr) != radius && Math.abs(dc) != radius) continue;
+                    int c = col + dc, r = row + dr;
+                    if (!isWalkable(c, r)) continue;
+                    int dist = dc * dc + dr * dr;
+                    if (dist < bestDist) {
+                        bestDist = dist;
+                        best = r * cols + c;
+                    }
+                }
+            }
+            if (best >= 0) return best;
+        }
+        return -1;
+    }
+
+    /**
+     * 两个节点之间能否直线通行
+     */
+    public boolean lineOfSight(int from, int to) {
+        return lineOfSight(from % cols, from / cols, to % cols, to / cols);
+    }
+
+    /**
+     * 坦克能否从像素位置直线移动到节点
+     */
+    public boolean canReach(int x, int y, int node) {
+        return lineOfSight(x / (double) CELL_SIZE, y / (double) CELL_SIZE, node % cols, node / cols);
+    }
+
+    /**
+     * 按节点坐标（可以是小数）判断直线通行
+     * 坦克位于节点之间时，碰撞框被四周节点的碰撞框完全覆盖，
+     * 因此只要直线经过的每个网格方格的角上节点都可通行，整段移动就不会碰墙
+     */
+    private boolean lineOfSight(double x0, double y0, double x1, double y1) {
+        if (x0 > x1) {
+            double t = x0; x0 = x1; x1 = t;
+            t = y0; y0 = y1; y1 = t;
+        }
+        double dx = x1 - x0, dy = y1 - y0;
+        // 逐列检查：在每个整数列区间内直线覆盖的列和行范围
+        double xa = x0;
+        while (true) {
+            double xb = Math.min(x1, Math.floor(xa + EPSILON) + 1);
+            double ya = dx > EPSILON ? y0 + (xa - x0) * dy / dx : y0;
+            double yb = dx > EPSILON ? y0 + (xb - x0) * dy / dx : y1;
+            int colLo = (int) Math.floor(xa + EPSILON), colHi = (int) Math.ceil(xb - EPSILON);
+            int rowLo = (int) Math.floor(Math.min(ya, yb) + EPSILON);
+            int rowHi = (int) Math.ceil(Math.max(ya, yb) - EPSILON);
+            for (int col = colLo; col <= Math.max(colLo, colHi); col++) {
+                for (int row = rowLo; row <= Math.max(rowLo, rowHi); row++) {
+                    if (!isWalkable(col, row)) return false;
+                }
+            }
+            if (xb >= x1 - EPSILON) return true;
+            xa = xb;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package src.com.bjsxt.tank.Config;
+
+import java.util.Arrays;
+
+/**
+ * 基于导航网格的A*寻路器，每个坦克一个
+ * 搜索状态保存在预先分配的数组中，每个逻辑帧最多展开固定数量的节点，没搜完的下一帧继续；
+ * 找到的路径经过拉直后缓存，目标不变时直接沿缓存路径走，目标小范围移动时在路径末尾追加，
+ * 只有目标大幅移动或坦克偏离路径时才重新搜索
+ */
+public class PathPlanner {
+    // 每个逻辑帧最多展开的节点数
+    private static final int MAX_EXPANSIONS_PER_TICK = 1500;
+    // 目标移动不超过此节点数且可直达时，在原路径末尾追加而不重新搜索
+    private static final int MAX_APPEND_CELLS = 4;
+    private static final int MAX_WAYPOINTS = 64;
+    private static final float DIAGONAL_COST = 1.4142135f;
+    // 8个相邻方向，前4个为直行，后4个为对角
+    private static final int[] DC = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DR = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private NavigationGrid grid;
+
+    // 搜索状态，按节点编号索引；用搜索序号标记本次搜索访问过的节点，避免每次清空数组
+    private float[] gScore = new float[0];
+    private float[] fScore = new float[0];
+    private int[] parent = new int[0];
+    private int[] openStamp = new int[0];
+    private int[] closedStamp = new int[0];
+    private int stamp;
+    // 开放列表（二叉堆），heapPos记录节点在堆中的位置，用于降低键值
+    private int[] heap = new int[0];
+    private int[] heapPos = new int[0];
+    private int heapSize;
+    private int[] rawPath = new int[0];
+
+    private boolean searching;
+    private int searchGoal = -1;
+    private int failedGoal = -1; // 上次搜索失败的目标，目标不变时不再重复搜索
+
+    // 缓存的路径（拉直后的路径点）
+    private final int[] waypoints = new int[MAX_WAYPOINTS];
+    private int waypointCount;
+    private int waypointIndex;
+    private int pathGoal = -1;
+    private int committedWaypoint = -1; // 已确认可以直线到达的路径点
+
+    /**
+     * 计算前往目标时下一个要走向的路径点
+     * @param x 坦克当前左上角X
+     * @param y 坦克当前左上角Y
+     * @param out 输出路径点坐标（坦克左上角）
+     * @return 没有可用路径（正在搜索、无法到达或已到达终点附近）时返回 false，调用方应直接朝目标移动
+     */
+    public boolean nextWaypoint(NavigationGrid grid, int x, int y, int targetX, int targetY, int[] out) {
+        if (grid != this.grid) {
+            attach(grid);
+        }
+        int start = grid.nearestNode(x, y);
+        int goal = grid.nearestNode(targetX, targetY);
+        if (start < 0 || goal < 0) return false;
+
+        // 偏离路径（当前路径点已不可直达）时丢弃路径
+        if (hasPath() && !grid.lineOfSight(start, waypoints[waypointIndex])) {
+            clearPath();
+        }
+
+        if (goal != pathGoal && !(searching && goal == searchGoal)) {
+            if (hasPath() && isNear(goal, pathGoal) && waypointCount < MAX_WAYPOINTS
+                    && grid.lineOfSight(pathGoal, goal)) {
+                // 增量更新：目标只移动了一点，直接接在原路径后面
+                waypoints[waypointCount++] = goal;
+                pathGoal = goal;
+            } else if (goal != failedGoal) {
+                startSearch(start, goal);
+            }
+        }
+        if (searching) {
+            continueSearch();
+        }
+        if (!hasPath()) return false;
+
+        // 跳过已到达的路径点；能直接看到下一个路径点时也提前转向
+        while (waypointIndex < waypointCount - 1 && reached(x, y, waypoints[waypointIndex])) {
+            waypointIndex++;
+        }
+        if (waypointIndex < waypointCount - 1 && grid.canReach(x, y, waypoints[waypointIndex + 1])) {
+            waypointIndex++;
+            committedWaypoint = waypoints[waypointIndex];
+        }
+        int node = waypoints[waypointIndex];
+        if (waypointIndex == waypointCount - 1 && reached(x, y, node)) {
+            return false;
+        }
+        if (node != committedWaypoint) {
+            if (grid.canReach(x, y, node)) {
+                // 确认可以直线到达后一直朝它走，不再因为取整误差反复检查
+                committedWaypoint = node;
+            } else {
+                // 坦克不在网格节点上，直线过去可能擦到墙角，先对齐到最近的节点
+                node = start;
+            }
+        }
+        out[0] = grid.nodeX(node);
+        out[1] = grid.nodeY(node);
+        return true;
+    }
+
+    /**
+     * 丢弃缓存的路径和搜索状态，例如坦克被挡住或被重新放置时
+     */
+    public void invalidate() {
+        clearPath();
+        searching = false;
+        searchGoal = -1;
+        failedGoal = -1;
+    }
+
+    public boolean isSearching() {
+        return searching;
+    }
+
+    private void attach(NavigationGrid grid) {
+        this.grid = grid;
+        int n = grid.getNodeCount();
+        if (gScore.length != n) {
+            gScore = new float[n];
+            fScore = new float[n];
+            parent = new int[n];
+            openStamp = new int[n];
+            closedStamp = new int[n];
+            heap = new int[n];
+            heapPos = new int[n];
+            rawPath = new int[n];
+        } else {
+            Arrays.fill(openStamp, 0);
+            Arrays.fill(closedStamp, 0);
+        }
+        stamp = 0;
+        invalidate();
+    }
+
+    private boolean hasPath() {
+        return waypointCount > 0;
+    }
+
+    private void clearPath() {
+        waypointCount = 0;
+        waypointIndex = 0;
+        pathGoal = -1;
+        committedWaypoint = -1;
+    }
+
+    private boolean isNear(int a, int b) {
+        int cols = grid.getCols();
+        return Math.abs(a % cols - b % cols) <= MAX_APPEND_CELLS
+                && Math.abs(a / cols - b / cols) <= MAX_APPEND_CELLS;
+    }
+
+    private boolean reached(int x, int y, int node) {
+        return Math.abs(x - grid.nodeX(node)) <= 2 && Math.abs(y - grid.nodeY(node)) <= 2;
+    }
+
+    // 八方向距离，与移动代价一致，保证A*结果最优
+    private float heuristic(int node, int goal) {
+        int cols = grid.getCols();
+        int dx = Math.abs(node % cols - goal % cols);
+        int dy = Math.abs(node / cols - goal / cols);
+        return Math.max(dx, dy) + (DIAGONAL_COST - 1) * Math.min(dx, dy);
+    }
+
+    private void startSearch(int start, int goal) {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(openStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            stamp = 1;
+        }
+        searching = true;
+        searchGoal = goal;
+        failedGoal = -1;
+        heapSize = 0;
+        gScore[start] = 0;
+        parent[start] = -1;
+        openStamp[start] = stamp;
+        push(start, heuristic(start, goal));
+    }
+
+    private void continueSearch() {
+        int cols = grid.getCols();
+        int budget = MAX_EXPANSIONS_PER_TICK;
+        while (heapSize > 0 && budget-- > 0) {
+            int node = pop();
+            closedStamp[node] = stamp;
+            if (node == searchGoal) {
+                searching = false;
+                buildPath(node);
+                return;
+            }
+            int col = node % cols, row = node / cols;
+            for (int k = 0; k < 8; k++) {
+                int nc = col + DC[k], nr = row + DR[k];
+                if (!grid.isWalkable(nc, nr)) continue;
+                // 对角移动不能切过墙角
+                if (k >= 4 && (!grid.isWalkable(nc, row) || !grid.isWalkable(col, nr))) continue;
+                int next = nr * cols + nc;
+                if (closedStamp[next] == stamp) continue;
+                float g = gScore[node] + (k >= 4 ? DIAGONAL_COST : 1f);
+                if (openStamp[next] != stamp) {
+                    openStamp[next] = stamp;
+                    gScore[next] = g;
+                    parent[next] = node;
+                    push(next, g + heuristic(next, searchGoal));
+                } else if (g < gScore[next]) {
+                    gScore[next] = g;
+                    parent[next] = node;
+                    fScore[next] = g + heuristic(next, searchGoal);
+                    siftUp(heapPos[next]);
+                }
+            }
+        }
+        if (heapSize == 0) {
+            // 目标不可达
+            searching = false;
+            failedGoal = searchGoal;
+            clearPath();
+        }
+    }
+
+    /**
+     * 回溯搜索结果并拉直：只保留直线无法跨过的拐点
+     */
+    private void buildPath(int goal) {
+        int n = 0;
+        for (int node = goal; node != -1; node = parent[node]) {
+            rawPath[n++] = node;
+        }
+        // rawPath[n - 1] 是起点，rawPath[0] 是终点
+        clearPath();
+        int anchor = rawPath[n - 1];
+        for (int i = n - 2; i > 0 && waypointCount < MAX_WAYPOINTS - 1; i--) {
+            if (!grid.lineOfSight(anchor, rawPath[i - 1])) {
+                waypoints[waypointCount++] = rawPath[i];
+                anchor = rawPath[i];
+            }
+        }
+        waypoints[waypointCount++] = goal;
+        pathGoal = goal;
+    }
+
+    private void push(int node, float f) {
+        fScore[node] = f;
+        heap[heapSize] = node;
+        heapPos[node] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        float f = fScore[node];
+        while (i > 0) {
+            int p = (i - 1) >> 1;
+            if (fScore[heap[p]] <= f) break;
+            heap[i] = heap[p];
+            heapPos[heap[i]] = i;
+            i = p;
+        }
+        heap[i] = node;
+        heapPos[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        float f = fScore[node];
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= heapSize) break;
+            if (c + 1 < heapSize && fScore[heap[c + 1]] < fScore[heap[c]]) c++;
+            if (fScore[heap[c]] >= f) break;
+            heap[i] = heap[c];
+            heapPos[heap[i]] = i;
+            i = c;
+        }
+        heap[i] = node;
+        heapPos[node] = i;
+    }
+}
@@ -2,58 +2,46 @@ package src.com.bjsxt.tank.Config;
 
 import src.com.bjsxt.tank.InterFace.Bullet;
 
-import javax.swing.*;
 import java.awt.*;
 
+/**
+ * 玩家子弹，状态保存在 BulletPool 的槽位中，通过 BulletPool.acquirePlayer 获取
+ */
 public class PlayerBullet implements Bullet {
-    private int x;
-    private int y;
-    private int width = 10;
-    private int height = 10;
+    public static final int DEFAULT_SPEED = 15;
+    // 不同坦克的子弹颜色
+    private static final Color RED = new Color(255, 69, 0);
+    private static final Color BLUE = new Color(30, 144, 255);
+    private static final Color GREEN = new Color(50, 205, 50);
+    private static final Color ORANGE = new Color(255, 165, 0);
+
+    private final BulletPool pool;
+    private final int slot;
     private int radius = 5; // 子弹半径
-    private int speed = 15;
     private int damage = 1;
-    private boolean active = true;
-    private double angle; // 子弹飞行角度
-    private Color bulletColor;
-    private Image bulletImage;
-    private int bounceCount = 0;
-    private static final int MAX_BOUNCE = 6; // 最大反弹次数
-    private static final int BULLET_LIFETIME = 10000; // 子弹最大存活时间10秒
-
-
-    public PlayerBullet(int x, int y, double angle) {
-        this.x = x - width/2; // 调整初始位置，使子弹中心对准发射点
-        this.y = y - height/2;
-        this.angle = angle;
-        // 根据坦克类型设置不同颜色
-        switch (ConfigTool.getSelectedTank()) {
-            case 1:
-                bulletColor = new Color(255, 69, 0); // 红色
-                break;
+
+    PlayerBullet(BulletPool pool, int slot) {
+        this.pool = pool;
+        this.slot = slot;
+    }
+
+    // 根据坦克类型设置不同颜色
+    static Color colorFor(int selectedTank) {
+        switch (selectedTank) {
             case 2:
-                bulletColor = new Color(30, 144, 255); // 蓝色
-                break;
+                return BLUE; // 蓝色
             case 3:
-                bulletColor = new Color(50, 205, 50); // 绿色
-                break;
+                return GREEN; // 绿色
             case 4:
-                bulletColor = new Color(255, 165, 0); // 橙色
-                break;
+                return ORANGE; // 橙色
             default:
-                bulletColor = new Color(255, 69, 0); // 红色
+                return RED; // 红色
         }
-        // 添加子弹自动消失的定时器
-        new Timer(BULLET_LIFETIME, e -> {
-            deactivate();
-            ((Timer)e.getSource()).stop();
-        }).start();
     }
 
-
     @Override
     public int getSpeed() {
-        return speed;
+        return pool.speed[slot];
     }
 
     @Override
@@ -63,120 +51,126 @@ public class PlayerBullet implements Bullet {
 
     @Override
     public void updatePosition() {
-        if (!active) return;
-        x += speed * Math.sin(angle);
-        y -= speed * Math.cos(angle);
+        if (!isActive()) return;
+        pool.moveTo(slot, pool.x[slot] + pool.speed[slot] * pool.dirX[slot],
+                pool.y[slot] + pool.speed[slot] * pool.dirY[slot]);
     }
 
     @Override
     public Rectangle getCollisionBounds() {
         if (!isActive()) return null;
-        return new Rectangle(x - radius, y - radius, radius * 2, radius * 2);
+        return new Rectangle((int) pool.x[slot] - radius, (int) pool.y[slot] - radius, radius * 2, radius * 2);
     }
 
     @Override
     public boolean isActive() {
-        return active;
+        return pool.active[slot];
     }
 
     @Override
     public void deactivate() {
-        active = false;
+        pool.active[slot] = false;
     }
+
     @Override
     public void bounce() {
-        if (!canBounce()) {
-            deactivate();
-            return;
-        }
+        pool.bounce(slot);
+    }
 
-        // 获取当前移动方向
-        double dx = Math.sin(angle);
-        double dy = -Math.cos(angle);
-
-        // 判断反弹方向并确定更精确的后退距离
-        if (Math.abs(dx) > Math.abs(dy)) {
-            // 水平方向反弹
-            angle = Math.PI - angle;
-            
-            // 增加穿透距离计算，防止卡墙
-            int penetrationDepth = Math.max(10, (int)(speed * Math.abs(dx) * 1.5));
-            x -= (int)(Math.signum(dx) * penetrationDepth);
-        } else {
-            // 垂直方向反弹
-            angle = -angle;
-            
-            // 增加穿透距离计算，防止卡墙
-            int penetrationDepth = Math.max(10, (int)(speed * Math.abs(dy) * 1.5));
-            y += (int)(Math.signum(dy) * penetrationDepth);
-        }
+    @Override
+    public int getBounceCount() {
+        return pool.bounce[slot];
+    }
 
-        // 修正角度，保持在0-2π范围内
-        angle = (angle + 2 * Math.PI) % (2 * Math.PI);
+    @Override
+    public boolean canBounce() {
+        return pool.bounce[slot] < BulletPool.MAX_BOUNCE;
+    }
 
-        // 增加反弹计数
-        bounceCount++;
-        
-        // 每次反弹略微减速，模拟能量损失
-        speed = Math.max(5, (int)(speed * 0.95));
+    @Override
+    public void updateLifetime() {
+        pool.updateLifetime(slot);
     }
 
     @Override
-    public int getBounceCount() {
-        return bounceCount;
+    public void release() {
+        pool.release(slot);
     }
 
     @Override
-    public boolean canBounce() {
-        return bounceCount < MAX_BOUNCE;
+    public double getCenterX() {
+        return pool.x[slot];
+    }
+
+    @Override
+    public double getCenterY() {
+        return pool.y[slot];
+    }
+
+    @Override
+    public void moveTo(double centerX, double centerY) {
+        pool.moveTo(slot, centerX, centerY);
+    }
+
+    @Override
+    public double getDirX() {
+        return pool.dirX[slot];
     }
 
+    @Override
+    public double getDirY() {
+        return pool.dirY[slot];
+    }
+
+    @Override
+    public void setDirection(double dirX, double dirY) {
+        pool.dirX[slot] = dirX;
+        pool.dirY[slot] = dirY;
+        // 玩家子弹角度以正上方为0
+        pool.angle[slot] = (Math.atan2(dirX, -dirY) + 2 * Math.PI) % (2 * Math.PI);
+    }
 
     @Override
     public void draw(Graphics g) {
-        if (!active) return;
+        if (!isActive()) return;
 
         Graphics2D g2d = (Graphics2D) g.create();
         // 开启抗锯齿
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         // 绘制主体
-        g2d.setColor(bulletColor);
-        g2d.fillOval(x - radius, y - radius, radius * 2, radius * 2);
+        g2d.setColor(pool.color[slot]);
+        g2d.fillOval((int) pool.x[slot] - radius, (int) pool.y[slot] - radius, radius * 2, radius * 2);
 
         g2d.dispose();
     }
 
     public double getAngle() {
-        return angle;
-    }
-    public void setAngle(double newAngle) {
-        this.angle = (newAngle + 2 * Math.PI) % (2 * Math.PI);
+        return pool.angle[slot];
     }
 
-    public void adjustPosition(int dx, int dy) {
-        this.x += dx;
-        this.y += dy;
+    public void setAngle(double newAngle) {
+        double normalized = (newAngle + 2 * Math.PI) % (2 * Math.PI);
+        pool.angle[slot] = normalized;
+        pool.dirX[slot] = Math.sin(normalized);
+        pool.dirY[slot] = -Math.cos(normalized);
     }
 
     public double getX() {
-        return x + width / 2.0; // 返回子弹中心的X坐标
+        return pool.x[slot]; // 返回子弹中心的X坐标
     }
 
     public double getY() {
-        return y + height / 2.0; // 返回子弹中心的Y坐标
+        return pool.y[slot]; // 返回子弹中心的Y坐标
     }
 
+    @Override
     public int getRadius() {
         return radius;
     }
 
-    public void setPosition(int centerX, int centerY) {
-        this.x = centerX - width/2;
-        this.y = centerY - height/2;
-    }
-
-    public void decreaseSpeed(double factor) {
-        this.speed = Math.max(5, (int)(this.speed * factor));
+    @Override
+    public Color getColor() {
+        return pool.color[slot];
     }
-}
\ No newline at end of file
+}
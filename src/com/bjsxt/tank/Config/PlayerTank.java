@@ -5,13 +5,13 @@ import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 import java.util.List;
-import javax.swing.*;
 
 public class PlayerTank extends AbstractTank {
     private final boolean[] keysPressed = new boolean[512];
-    private static int health = 3; // 初始生命值
-    private static final int MAX_HEALTH = 3; // 最大生命值
+    public static final int MAX_HEALTH = 3; // 最大生命值
     private final Image[] tankImages = new Image[2];
+    private SpriteAtlas sprite; // 预旋转图集（up1/up2两帧）
+    private boolean imagesLoaded;
     private int tankType;
     private double angle = 0; // 当前朝向角度，0为向上，顺时针为正
     private boolean isMoving = false;
@@ -25,28 +25,25 @@ public class PlayerTank extends AbstractTank {
 
 
     public PlayerTank(int x, int y, CollisionDetector collisionDetector) {
-        super(x, y, 42, 42, 3, collisionDetector);
+        super(x, y, 42, 42, MAX_HEALTH, collisionDetector);
         this.tankType = ConfigTool.getSelectedTank();
         // 初始化子弹列表
         this.bullets = new ArrayList<>();
-        loadTankImage();
     }
 
+    // 第一次绘制时才加载图像，无界面运行时不解码图片
     private void loadTankImage() {
+        if (imagesLoaded) return;
+        imagesLoaded = true;
         try {
             String[] paths = {
                     "/src/Images/TankImage/tank" + tankType + "/up1.png",
                     "/src/Images/TankImage/tank" + tankType + "/up2.png"
             };
-            for (int i = 0; i < paths.length; i++) {
-                java.net.URL url = getClass().getResource(paths[i]);
-                if (url == null) {
-                    System.err.println("图片不存在: " + paths[i]);
-                    tankImages[i] = null;
-                    continue;
-                }
-                ImageIcon icon = new ImageIcon(url);
-                tankImages[i] = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
+            sprite = SpriteAtlas.get(width, height, paths);
+            if (sprite == null) return;
+            for (int i = 0; i < tankImages.length; i++) {
+                tankImages[i] = sprite.getFrame(i);
             }
         } catch (Exception e) {
             System.err.println("无法加载坦克图像: " + e.getMessage());
@@ -86,7 +83,7 @@ public class PlayerTank extends AbstractTank {
 
         // 如果开始移动或停止移动，重置动画计时
         if (isMoving != wasMoving) {
-            lastImageSwitchTime = System.currentTimeMillis();
+            lastImageSwitchTime = now();
         }
         // 移动
         int moveSpeed = 0;
@@ -110,31 +107,44 @@ public class PlayerTank extends AbstractTank {
         }
     }
     public Image getCurrentImage() {
-        // 如果不移动或没有图片，返回第一张图片
+        loadTankImage();
+        return tankImages[getSpriteFrame()];
+    }
+
+    @Override
+    public SpriteAtlas getSprite() {
+        loadTankImage();
+        return sprite;
+    }
+
+    @Override
+    public int getSpriteFrame() {
+        // 如果不移动或没有图片，使用第一张图片
         if (!isMoving || tankImages[0] == null) {
-            return tankImages[0];
+            return 0;
         }
 
         // 动画切换逻辑,每200毫秒切换一次图片
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         if (currentTime - lastImageSwitchTime > 200) {
             currentImageIndex = (currentImageIndex + 1) % 2;
             lastImageSwitchTime = currentTime;
         }
 
-        return tankImages[currentImageIndex];
+        return currentImageIndex;
     }
 
 
     @Override
     public void fire() {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = now();
         if (currentTime - lastFireTime >= FIRE_COOLDOWN) {
-            PlayerBullet bullet = new PlayerBullet(
+            PlayerBullet bullet = bulletPool().acquirePlayer(
                     getX() + getWidth()/2,
                     getY() + getHeight()/2,
                     getAngle()
             );
+            if (bullet == null) return; // 子弹池已满
             bullets.add(bullet);
             lastFireTime = currentTime;
         }
@@ -145,19 +155,27 @@ public class PlayerTank extends AbstractTank {
 
     }
 
+    /**
+     * 移除失效的子弹（子弹移动由 BulletPhysics 负责）
+     */
     public void updateBullets() {
-        // 移除失效的子弹
-        bullets.removeIf(bullet -> !bullet.isActive());
-
-        // 更新剩余子弹的位置
-        for (PlayerBullet bullet : bullets) {
-            bullet.updatePosition();
+        for (int i = bullets.size() - 1; i >= 0; i--) {
+            PlayerBullet bullet = bullets.get(i);
+            if (!bullet.isActive()) {
+                bullets.remove(i);
+                bullet.release();
+            }
         }
     }
-    public void drawBullets(Graphics g) {
+
+    /**
+     * 回收所有子弹
+     */
+    public void clearBullets() {
         for (PlayerBullet bullet : bullets) {
-            bullet.draw(g);
+            bullet.release();
         }
+        bullets.clear();
     }
 
 
@@ -200,18 +218,13 @@ public class PlayerTank extends AbstractTank {
             resetKeyStates();
         }
     }
-    public void revive() { this.alive = true; health = 3; } // 重置生命值
+    public void revive() { this.alive = true; health = MAX_HEALTH; } // 重置生命值
 
 
-    public static int getHealth() {
+    public int getHealth() {
         return health;
     }
 
-    // 添加重置静态生命值的方法
-    public static void resetHealth() {
-        health = MAX_HEALTH; // 恢复满血
-    }
-
     public double getAngle() {
         return angle;
     }
@@ -242,37 +255,6 @@ public class PlayerTank extends AbstractTank {
         return isMoving;
     }
 
-    @Override
-    protected void drawTank(Graphics g) {
-        Image currentImage = getCurrentImage();
-        if (currentImage != null) {
-            Graphics2D g2d = (Graphics2D) g.create();
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            int centerX = x + width / 2;
-            int centerY = y + height / 2;
-
-            g2d.translate(centerX, centerY);
-            g2d.rotate(angle);
-            g2d.drawImage(currentImage, -width / 2, -height / 2, width, height, null);
-
-            g2d.dispose();
-        }
-    }
-
-    // 替换现有的draw方法
-    @Override
-    public void draw(Graphics g) {
-        // 确保调用父类的draw方法来绘制爆炸效果
-        super.draw(g);
-        
-        // 只有在坦克存活时才绘制坦克图像和子弹
-        if (isAlive()) {
-            // 绘制子弹
-            drawBullets(g);
-        }
-    }
-
     public void stopMoving() {
         isMoving = false;
     }
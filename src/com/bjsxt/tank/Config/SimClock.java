@@ -0,0 +1,35 @@
+package src.com.bjsxt.tank.Config;
+
+/**
+ * 模拟时钟
+ * 按逻辑帧计时，由所属世界每帧推进一次；坦克的开火冷却、行动间隔和动画都按它计算，
+ * 结果与实际运行速度无关，无界面快速运行和回放时与正常游戏一致
+ */
+public class SimClock {
+    // 每秒逻辑帧数
+    public static final int TICK_RATE = 60;
+
+    private long tick;
+
+    /**
+     * 推进一个逻辑帧
+     */
+    public void advance() {
+        tick++;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * 模拟时间（毫秒），用于替代 System.currentTimeMillis()
+     */
+    public long millis() {
+        return tick * 1000 / TICK_RATE;
+    }
+}
@@ -8,21 +8,50 @@ import java.awt.*;
 import java.util.List;
 
 public class SimpleCollisionDetector implements CollisionDetector {
-    private Dimension gameAreaSize;
+    private volatile Dimension gameAreaSize;
     private List<PVPWall> PVPWalls;
     private List<PVEWall> pveWalls; // 添加PVEWall列表
 
+    // 墙体网格索引，在设置墙体时构建；构建完成后整体替换引用，模拟线程读取时无需加锁
+    private volatile WallGrid pvpWallGrid;
+    private volatile WallGrid pveWallGrid;
+    // 坦克导航网格，墙体或游戏区域变化后失效，下次寻路时重新构建
+    private volatile NavigationGrid navigationGrid;
+
     public SimpleCollisionDetector(Dimension gameAreaSize) {
         this.gameAreaSize = gameAreaSize;
     }
     public void setGameAreaSize(Dimension size) {
         this.gameAreaSize = size;
+        this.navigationGrid = null;
+    }
+    public Dimension getGameAreaSize() {
+        return gameAreaSize;
     }
     public void setWalls(List<PVPWall> PVPWalls) {
         this.PVPWalls = PVPWalls;
+        this.pvpWallGrid = PVPWalls != null ? WallGrid.fromPVPWalls(PVPWalls) : null;
+        this.navigationGrid = null;
     }
     public void setPVEWalls(List<PVEWall> walls) { // 添加设置PVEWall的方法
         this.pveWalls = walls;
+        this.pveWallGrid = walls != null ? WallGrid.fromPVEWalls(walls) : null;
+        this.navigationGrid = null;
+    }
+
+    /**
+     * 获取指定坦克尺寸的导航网格，墙体设置后首次调用时构建
+     * @return 导航网格，游戏区域未知时返回 null
+     */
+    public NavigationGrid getNavigationGrid(int tankWidth, int tankHeight) {
+        NavigationGrid grid = navigationGrid;
+        if (grid == null || grid.getTankWidth() != tankWidth || grid.getTankHeight() != tankHeight) {
+            Dimension size = gameAreaSize;
+            if (size == null) return null;
+            grid = NavigationGrid.build(this, size.width, size.height, tankWidth, tankHeight);
+            navigationGrid = grid;
+        }
+        return grid;
     }
 
     @Override
@@ -41,35 +70,79 @@ public class SimpleCollisionDetector implements CollisionDetector {
         }
 
         // 检查墙体碰撞 (PVPWall)
-        if (PVPWalls != null) {
-            Rectangle objectBounds = new Rectangle(x, y, width, height);
-            for (PVPWall wall : PVPWalls) {
-                Rectangle wallBounds = wall.getCollisionBounds();
-                if (objectBounds.intersects(wallBounds)) {
-                    return true;
-                }
-            }
+        if (pvpWallGrid != null && pvpWallGrid.intersects(x, y, width, height)) {
+            return true;
         }
         // 检查PVEWall碰撞
-        if (pveWalls != null) {
-            Rectangle objectBounds = new Rectangle(x, y, width, height);
-            for (PVEWall wall : pveWalls) {
-                if (wall.isSolid()) {
-                    // 实心墙体直接检查边界
-                    if (objectBounds.intersects(wall.getCollisionBounds())) {
-                        return true;
-                    }
-                } else {
-                    // 非实心墙体检查每个段落
-                    for (Rectangle segment : wall.getSegments()) {
-                        if (objectBounds.intersects(segment)) {
-                            return true;
-                        }
-                    }
-                }
+        return pveWallGrid != null && pveWallGrid.intersects(x, y, width, height);
+    }
+
+    /**
+     * 判断该位置是否空闲：完全位于游戏区域内且不与任何墙体重叠（不含安全边距）
+     * 供AI探测伏击点等位置使用
+     */
+    @Override
+    public boolean isPositionFree(int x, int y, int width, int height) {
+        if (gameAreaSize != null && (x < 0 || y < 0 ||
+                x + width > gameAreaSize.width || y + height > gameAreaSize.height)) {
+            return false;
+        }
+        if (pvpWallGrid != null && pvpWallGrid.intersects(x, y, width, height)) {
+            return false;
+        }
+        return pveWallGrid == null || !pveWallGrid.intersects(x, y, width, height);
+    }
+
+    /**
+     * 圆形子弹沿直线扫掠时与墙体和游戏边界的最早碰撞
+     * @param normal 输出碰撞法线
+     * @return 碰撞前移动的距离，不碰撞返回 -1
+     */
+    public double sweepCircle(double startX, double startY, double dirX, double dirY,
+                              double length, double radius, double[] normal) {
+        double best = -1;
+        double nx = 0, ny = 0;
+
+        if (pvpWallGrid != null) {
+            double t = pvpWallGrid.sweepCircle(startX, startY, dirX, dirY, length, radius, normal);
+            if (t >= 0) {
+                best = t;
+                nx = normal[0];
+                ny = normal[1];
+            }
+        }
+        if (pveWallGrid != null) {
+            double t = pveWallGrid.sweepCircle(startX, startY, dirX, dirY, length, radius, normal);
+            if (t >= 0 && (best < 0 || t < best)) {
+                best = t;
+                nx = normal[0];
+                ny = normal[1];
+            }
+        }
+
+        // 游戏区域边界
+        if (gameAreaSize != null) {
+            double endX = startX + dirX * length;
+            double endY = startY + dirY * length;
+            if (dirX < 0 && endX < radius) {
+                double t = Math.max(0, (radius - startX) / dirX);
+                if (best < 0 || t < best) { best = t; nx = 1; ny = 0; }
+            } else if (dirX > 0 && endX > gameAreaSize.width - radius) {
+                double t = Math.max(0, (gameAreaSize.width - radius - startX) / dirX);
+                if (best < 0 || t < best) { best = t; nx = -1; ny = 0; }
+            }
+            if (dirY < 0 && endY < radius) {
+                double t = Math.max(0, (radius - startY) / dirY);
+                if (best < 0 || t < best) { best = t; nx = 0; ny = 1; }
+            } else if (dirY > 0 && endY > gameAreaSize.height - radius) {
+                double t = Math.max(0, (gameAreaSize.height - radius - startY) / dirY);
+                if (best < 0 || t < best) { best = t; nx = 0; ny = -1; }
             }
         }
-        return false;
+
+        normal[0] = nx;
+        normal[1] = ny;
+        return best;
     }
 
     // 添加一个检查碰撞但排除坦克的方法
@@ -87,25 +160,6 @@ public class SimpleCollisionDetector implements CollisionDetector {
         }
 
         // 只检查墙体碰撞，不检查坦克碰撞
-        Rectangle objectBounds = new Rectangle(x, y, width, height);
-
-        // 检查PVEWall碰撞
-        if (pveWalls != null) {
-            for (PVEWall wall : pveWalls) {
-                if (wall.isSolid()) {
-                    if (objectBounds.intersects(wall.getCollisionBounds())) {
-                        return true;
-                    }
-                } else {
-                    for (Rectangle segment : wall.getSegments()) {
-                        if (objectBounds.intersects(segment)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-
-        return false;
+        return pveWallGrid != null && pveWallGrid.intersects(x, y, width, height);
     }
-}
\ No newline at end of file
+}
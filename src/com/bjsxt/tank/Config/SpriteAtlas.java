@@ -0,0 +1,104 @@
+package src.com.bjsxt.tank.Config;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预旋转精灵图集
+ * 加载时把每个动画帧按固定数量的量化角度旋转绘制到一张图集中（行：动画帧，列：角度），
+ * 绘制坦克时只需按角度选取格子做一次不缩放的贴图，不再每帧做仿射变换
+ */
+public class SpriteAtlas {
+    // 量化角度数量，相邻角度相差 360/64 = 5.625 度
+    public static final int ANGLE_STEPS = 64;
+    // GIF动画默认每帧时长（毫秒）
+    private static final int GIF_FRAME_MILLIS = 100;
+
+    // 按 图片路径+尺寸 共享图集，同类坦克只生成一次
+    private static final Map<String, SpriteAtlas> CACHE = new ConcurrentHashMap<>();
+
+    private final BufferedImage atlas;
+    private final Image[] frames; // 未旋转的缩放帧
+    private final int cellSize;   // 每个格子的边长（可容纳任意角度旋转后的图像）
+
+    private SpriteAtlas(List<Image> scaledFrames, int width, int height) {
+        this.frames = scaledFrames.toArray(new Image[0]);
+        this.cellSize = (int) Math.ceil(Math.hypot(width, height)) + 2;
+        this.atlas = AssetManager.createCompatibleImage(cellSize * ANGLE_STEPS, cellSize * frames.length);
+
+        Graphics2D g = atlas.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int frame = 0; frame < frames.length; frame++) {
+            for (int step = 0; step < ANGLE_STEPS; step++) {
+                Graphics2D cell = (Graphics2D) g.create();
+                cell.translate(step * cellSize + cellSize / 2.0, frame * cellSize + cellSize / 2.0);
+                cell.rotate(step * 2 * Math.PI / ANGLE_STEPS);
+                cell.drawImage(frames[frame], -width / 2, -height / 2, null);
+                cell.dispose();
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * 获取图集，首次请求时从资源管理器取得缩放帧并生成
+     * @param paths 各动画帧的资源路径，GIF文件会展开为其中的所有帧
+     * @return 图集，图片都加载失败时返回 null
+     */
+    public static SpriteAtlas get(int width, int height, String... paths) {
+        String key = String.join("|", paths) + "@" + width + "x" + height;
+        SpriteAtlas atlas = CACHE.get(key);
+        if (atlas == null) {
+            List<Image> scaledFrames = loadFrames(width, height, paths);
+            if (scaledFrames.isEmpty()) return null;
+            atlas = CACHE.computeIfAbsent(key, k -> new SpriteAtlas(scaledFrames, width, height));
+        }
+        return atlas;
+    }
+
+    private static List<Image> loadFrames(int width, int height, String... paths) {
+        List<Image> result = new ArrayList<>();
+        for (String path : paths) {
+            result.addAll(AssetManager.getInstance().getScaledFrames(path, width, height));
+        }
+        return result;
+    }
+
+    /**
+     * 以中心点绘制指定帧在指定角度下的图像
+     */
+    public void draw(Graphics g, int frame, int centerX, int centerY, double angle) {
+        int row = Math.floorMod(frame, frames.length);
+        int col = Math.floorMod((int) Math.round(angle * ANGLE_STEPS / (2 * Math.PI)), ANGLE_STEPS);
+        int sx = col * cellSize;
+        int sy = row * cellSize;
+        int dx = centerX - cellSize / 2;
+        int dy = centerY - cellSize / 2;
+        g.drawImage(atlas, dx, dy, dx + cellSize, dy + cellSize,
+                sx, sy, sx + cellSize, sy + cellSize, null);
+    }
+
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    /**
+     * 获取未旋转的帧图像
+     */
+    public Image getFrame(int frame) {
+        return frames[Math.floorMod(frame, frames.length)];
+    }
+
+    /**
+     * 按时间计算GIF动画当前帧
+     */
+    public int animatedFrame(long millis) {
+        return frames.length > 1 ? (int) ((millis / GIF_FRAME_MILLIS) % frames.length) : 0;
+    }
+}
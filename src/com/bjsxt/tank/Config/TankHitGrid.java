@@ -0,0 +1,118 @@
+package src.com.bjsxt.tank.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 子弹命中检测的粗筛网格
+ * 每帧根据坦克位置重建，子弹只与所在网格单元内的坦克做精确检测
+ * 内部数组按需扩容，稳定运行后重建和查询都不分配对象
+ */
+public class TankHitGrid<T extends AbstractTank> {
+    private static final int CELL_SIZE = 64;
+
+    private final List<T> tanks = new ArrayList<>();
+    // 坦克碰撞边界
+    private int[] tankX = new int[16];
+    private int[] tankY = new int[16];
+    private int[] tankW = new int[16];
+    private int[] tankH = new int[16];
+
+    private int cols;
+    private int rows;
+    // 单元链表：cellHead[单元] -> 条目，entryNext[条目] -> 同单元下一个条目
+    private int[] cellHead = new int[0];
+    private int[] entryTank = new int[64];
+    private int[] entryNext = new int[64];
+    private int entryCount;
+
+    /**
+     * 根据当前存活的坦克重建网格
+     */
+    public void rebuild(List<T> source, int areaWidth, int areaHeight) {
+        tanks.clear();
+        entryCount = 0;
+        cols = Math.max(1, (areaWidth + CELL_SIZE - 1) / CELL_SIZE);
+        rows = Math.max(1, (areaHeight + CELL_SIZE - 1) / CELL_SIZE);
+        if (cellHead.length < cols * rows) {
+            cellHead = new int[cols * rows];
+        }
+        Arrays.fill(cellHead, 0, cols * rows, -1);
+
+        for (T tank : source) {
+            if (tank == null || !tank.isAlive()) continue;
+            int id = tanks.size();
+            tanks.add(tank);
+            if (id >= tankX.length) {
+                int size = tankX.length * 2;
+                tankX = Arrays.copyOf(tankX, size);
+                tankY = Arrays.copyOf(tankY, size);
+                tankW = Arrays.copyOf(tankW, size);
+                tankH = Arrays.copyOf(tankH, size);
+            }
+            tankX[id] = tank.getX();
+            tankY[id] = tank.getY();
+            tankW[id] = tank.getWidth();
+            tankH[id] = tank.getHeight();
+
+            int c0 = colOf(tankX[id]), c1 = colOf(tankX[id] + tankW[id] - 1);
+            int r0 = rowOf(tankY[id]), r1 = rowOf(tankY[id] + tankH[id] - 1);
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    addEntry(row * cols + col, id);
+                }
+            }
+        }
+    }
+
+    private void addEntry(int cell, int id) {
+        if (entryCount >= entryTank.length) {
+            entryTank = Arrays.copyOf(entryTank, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        entryTank[entryCount] = id;
+        entryNext[entryCount] = cellHead[cell];
+        cellHead[cell] = entryCount;
+        entryCount++;
+    }
+
+    /**
+     * 查找被子弹击中的坦克，多个坦克同时命中时返回列表中最靠前的一个
+     * @return 被击中的存活坦克，没有则返回 null
+     */
+    public T findHit(double centerX, double centerY, int radius) {
+        if (tanks.isEmpty()) return null;
+
+        // 与子弹 getCollisionBounds() 相同的包围盒
+        int bx = (int) centerX - radius;
+        int by = (int) centerY - radius;
+        int size = radius * 2;
+
+        int best = -1;
+        int c0 = colOf(bx), c1 = colOf(bx + size - 1);
+        int r0 = rowOf(by), r1 = rowOf(by + size - 1);
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                for (int e = cellHead[row * cols + col]; e >= 0; e = entryNext[e]) {
+                    int id = entryTank[e];
+                    if ((best < 0 || id < best) &&
+                            bx < tankX[id] + tankW[id] && tankX[id] < bx + size &&
+                            by < tankY[id] + tankH[id] && tankY[id] < by + size &&
+                            tanks.get(id).isAlive()) {
+                        best = id;
+                    }
+                }
+            }
+        }
+        return best >= 0 ? tanks.get(best) : null;
+    }
+
+    private int colOf(int px) {
+        return Math.max(0, Math.min(cols - 1, Math.floorDiv(px, CELL_SIZE)));
+    }
+
+    private int rowOf(int py) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(py, CELL_SIZE)));
+    }
+}
@@ -0,0 +1,337 @@
+package src.com.bjsxt.tank.Config;
+
+import src.com.bjsxt.tank.Structure.PVEWall;
+import src.com.bjsxt.tank.Structure.PVPWall;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 墙体均匀网格索引
+ * 在设置墙体时一次性构建，查询时只检查矩形覆盖到的网格单元
+ * 墙体矩形打包为int数组，查询过程不创建任何对象
+ * 另外把墙体预先光栅化成粗粒度位图，大部分查询只需要几次按字查表
+ */
+public class WallGrid {
+    // 网格单元大小（像素），与坦克尺寸同一量级，一次查询通常只覆盖几个单元
+    public static final int CELL_SIZE = 40;
+
+    // 墙体矩形（按下标对应）
+    private final int[] wallX;
+    private final int[] wallY;
+    private final int[] wallW;
+    private final int[] wallH;
+    private final int count;
+
+    private final int cols;
+    private final int rows;
+    // 压缩存储的单元内容：单元i的墙体下标位于 cellItems[cellStart[i] .. cellStart[i + 1])
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    // 占用位图：每一位代表 BIT_SIZE x BIT_SIZE 像素
+    public static final int BIT_SIZE = 4;
+    private final int bitCols;
+    private final int bitRows;
+    private final int wordsPerRow;
+    private final long[] solidBits; // 整个小格都在墙内
+    private final long[] edgeBits;  // 小格只有部分被墙覆盖，需要精确检测
+    private final boolean bitmapUsable; // 存在负坐标墙体时位图无法表示，只走精确检测
+
+    public WallGrid(List<Rectangle> wallRects) {
+        // 过滤掉无效矩形后打包成数组
+        int n = 0;
+        for (Rectangle r : wallRects) {
+            if (r.width > 0 && r.height > 0) n++;
+        }
+        wallX = new int[n];
+        wallY = new int[n];
+        wallW = new int[n];
+        wallH = new int[n];
+        int maxX = 0, maxY = 0;
+        int i = 0;
+        for (Rectangle r : wallRects) {
+            if (r.width <= 0 || r.height <= 0) continue;
+            wallX[i] = r.x;
+            wallY[i] = r.y;
+            wallW[i] = r.width;
+            wallH[i] = r.height;
+            maxX = Math.max(maxX, r.x + r.width);
+            maxY = Math.max(maxY, r.y + r.height);
+            i++;
+        }
+        count = n;
+
+        // 根据墙体最大范围确定网格大小
+        cols = Math.max(1, (maxX + CELL_SIZE - 1) / CELL_SIZE);
+        rows = Math.max(1, (maxY + CELL_SIZE - 1) / CELL_SIZE);
+
+        // 第一遍统计每个单元的墙体数量，第二遍填充
+        cellStart = new int[cols * rows + 1];
+        for (int id = 0; id < count; id++) {
+            int c0 = colOf(wallX[id]), c1 = colOf(wallX[id] + wallW[id] - 1);
+            int r0 = rowOf(wallY[id]), r1 = rowOf(wallY[id] + wallH[id] - 1);
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    cellStart[row * cols + col + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellItems = new int[cellStart[cols * rows]];
+        int[] fill = new int[cols * rows];
+        for (int id = 0; id < count; id++) {
+            int c0 = colOf(wallX[id]), c1 = colOf(wallX[id] + wallW[id] - 1);
+            int r0 = rowOf(wallY[id]), r1 = rowOf(wallY[id] + wallH[id] - 1);
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    int cell = row * cols + col;
+                    cellItems[cellStart[cell] + fill[cell]++] = id;
+                }
+            }
+        }
+
+        // 光栅化占用位图
+        bitCols = cols * CELL_SIZE / BIT_SIZE;
+        bitRows = rows * CELL_SIZE / BIT_SIZE;
+        wordsPerRow = (bitCols + 63) >> 6;
+        solidBits = new long[wordsPerRow * bitRows];
+        edgeBits = new long[wordsPerRow * bitRows];
+        boolean usable = true;
+        for (int id = 0; id < count; id++) {
+            if (wallX[id] < 0 || wallY[id] < 0) {
+                usable = false;
+                continue;
+            }
+            rasterize(wallX[id], wallY[id], wallW[id], wallH[id]);
+        }
+        for (int w = 0; w < edgeBits.length; w++) {
+            edgeBits[w] &= ~solidBits[w];
+        }
+        bitmapUsable = usable;
+    }
+
+    private void rasterize(int x, int y, int width, int height) {
+        int bx0 = x / BIT_SIZE, bx1 = (x + width - 1) / BIT_SIZE;
+        int by0 = y / BIT_SIZE, by1 = (y + height - 1) / BIT_SIZE;
+        for (int by = by0; by <= by1; by++) {
+            int py = by * BIT_SIZE;
+            boolean rowInside = py >= y && py + BIT_SIZE <= y + height;
+            for (int bx = bx0; bx <= bx1; bx++) {
+                int px = bx * BIT_SIZE;
+                boolean inside = rowInside && px >= x && px + BIT_SIZE <= x + width;
+                int word = by * wordsPerRow + (bx >> 6);
+                long bit = 1L << (bx & 63);
+                if (inside) {
+                    solidBits[word] |= bit;
+                } else {
+                    edgeBits[word] |= bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * 检查矩形是否与任一墙体相交（与Rectangle.intersects语义一致）
+     * 先查占用位图：碰到实心小格直接判定相交，全部为空则不相交，只有碰到边缘小格时才做精确检测
+     */
+    public boolean intersects(int x, int y, int width, int height) {
+        if (count == 0 || width <= 0 || height <= 0) return false;
+        if (!bitmapUsable) return intersectsExact(x, y, width, height);
+
+        // 位图之外没有墙体，只需检查重叠部分
+        int bx0 = Math.max(0, Math.floorDiv(x, BIT_SIZE));
+        int bx1 = Math.min(bitCols - 1, Math.floorDiv(x + width - 1, BIT_SIZE));
+        int by0 = Math.max(0, Math.floorDiv(y, BIT_SIZE));
+        int by1 = Math.min(bitRows - 1, Math.floorDiv(y + height - 1, BIT_SIZE));
+        if (bx0 > bx1 || by0 > by1) return false;
+
+        int w0 = bx0 >> 6, w1 = bx1 >> 6;
+        long firstMask = -1L << (bx0 & 63);
+        long lastMask = -1L >>> (63 - (bx1 & 63));
+        boolean touchesEdge = false;
+        for (int by = by0; by <= by1; by++) {
+            int base = by * wordsPerRow;
+            for (int w = w0; w <= w1; w++) {
+                long mask = -1L;
+                if (w == w0) mask &= firstMask;
+                if (w == w1) mask &= lastMask;
+                if ((solidBits[base + w] & mask) != 0) {
+                    return true;
+                }
+                if ((edgeBits[base + w] & mask) != 0) {
+                    touchesEdge = true;
+                }
+            }
+        }
+        return touchesEdge && intersectsExact(x, y, width, height);
+    }
+
+    /**
+     * 逐个检查矩形覆盖到的网格单元中的墙体
+     */
+    private boolean intersectsExact(int x, int y, int width, int height) {
+        int c0 = colOf(x), c1 = colOf(x + width - 1);
+        int r0 = rowOf(y), r1 = rowOf(y + height - 1);
+
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                int cell = row * cols + col;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int id = cellItems[k];
+                    if (x < wallX[id] + wallW[id] && wallX[id] < x + width &&
+                            y < wallY[id] + wallH[id] && wallY[id] < y + height) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 圆沿直线扫掠时与墙体的最早碰撞
+     * 把墙体矩形按半径向外扩展后做射线求交（拐角按方角近似）
+     * @param dirX 单位方向向量X
+     * @param dirY 单位方向向量Y
+     * @param length 扫掠距离
+     * @param normal 输出碰撞法线
+     * @return 碰撞前移动的距离，不碰撞返回 -1
+     */
+    public double sweepCircle(double startX, double startY, double dirX, double dirY,
+                              double length, double radius, double[] normal) {
+        if (count == 0) return -1;
+
+        // 扫掠包围盒
+        double endX = startX + dirX * length;
+        double endY = startY + dirY * length;
+        int boxX = (int) Math.floor(Math.min(startX, endX) - radius) - 1;
+        int boxY = (int) Math.floor(Math.min(startY, endY) - radius) - 1;
+        int boxW = (int) Math.ceil(Math.abs(endX - startX) + radius * 2) + 2;
+        int boxH = (int) Math.ceil(Math.abs(endY - startY) + radius * 2) + 2;
+        if (!intersects(boxX, boxY, boxW, boxH)) return -1;
+
+        double best = -1;
+        double bestNx = 0, bestNy = 0;
+        int c0 = colOf(boxX), c1 = colOf(boxX + boxW - 1);
+        int r0 = rowOf(boxY), r1 = rowOf(boxY + boxH - 1);
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                int cell = row * cols + col;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int id = cellItems[k];
+                    double minX = wallX[id] - radius, maxX = wallX[id] + wallW[id] + radius;
+                    double minY = wallY[id] - radius, maxY = wallY[id] + wallH[id] + radius;
+
+                    // 起点已在扩展矩形内：取穿透最浅的面，只有朝墙内运动才算碰撞
+                    if (startX > minX && startX < maxX && startY > minY && startY < maxY) {
+                        double nx = -1, ny = 0, depth = startX - minX;
+                        if (maxX - startX < depth) { depth = maxX - startX; nx = 1; ny = 0; }
+                        if (startY - minY < depth) { depth = startY - minY; nx = 0; ny = -1; }
+                        if (maxY - startY < depth) { nx = 0; ny = 1; }
+                        if (dirX * nx + dirY * ny < 0) {
+                            normal[0] = nx;
+                            normal[1] = ny;
+                            return 0;
+                        }
+                        continue;
+                    }
+
+                    // 射线与扩展矩形的 slab 求交
+                    double tEnter = Double.NEGATIVE_INFINITY, tExit = length;
+                    double nx = 0, ny = 0;
+                    if (dirX == 0) {
+                        if (startX <= minX || startX >= maxX) continue;
+                    } else {
+                        double t1 = (minX - startX) / dirX;
+                        double t2 = (maxX - startX) / dirX;
+                        double tNear = Math.min(t1, t2), tFar = Math.max(t1, t2);
+                        if (tNear > tEnter) {
+                            tEnter = tNear;
+                            nx = dirX > 0 ? -1 : 1;
+                            ny = 0;
+                        }
+                        tExit = Math.min(tExit, tFar);
+                    }
+                    if (dirY == 0) {
+                        if (startY <= minY || startY >= maxY) continue;
+                    } else {
+                        double t1 = (minY - startY) / dirY;
+                        double t2 = (maxY - startY) / dirY;
+                        double tNear = Math.min(t1, t2), tFar = Math.max(t1, t2);
+                        if (tNear > tEnter) {
+                            tEnter = tNear;
+                            nx = 0;
+                            ny = dirY > 0 ? -1 : 1;
+                        }
+                        tExit = Math.min(tExit, tFar);
+                    }
+                    if (tEnter > tExit || tEnter < -1e-9 || (nx == 0 && ny == 0)) continue;
+                    tEnter = Math.max(0, tEnter);
+
+                    if (best < 0 || tEnter < best) {
+                        best = tEnter;
+                        bestNx = nx;
+                        bestNy = ny;
+                    }
+                }
+            }
+        }
+        if (best >= 0) {
+            normal[0] = bestNx;
+            normal[1] = bestNy;
+        }
+        return best;
+    }
+
+    public int getWallCount() {
+        return count;
+    }
+
+    private int colOf(int px) {
+        return clamp(Math.floorDiv(px, CELL_SIZE), cols);
+    }
+
+    private int rowOf(int py) {
+        return clamp(Math.floorDiv(py, CELL_SIZE), rows);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    /**
+     * 根据PVPWall列表构建索引
+     */
+    public static WallGrid fromPVPWalls(List<PVPWall> walls) {
+        List<Rectangle> rects = new ArrayList<>();
+        if (walls != null) {
+            for (PVPWall wall : walls) {
+                rects.add(wall.getCollisionBounds());
+            }
+        }
+        return new WallGrid(rects);
+    }
+
+    /**
+     * 根据PVEWall列表构建索引，实心墙使用包围盒，其余墙体使用各个段落
+     */
+    public static WallGrid fromPVEWalls(List<PVEWall> walls) {
+        List<Rectangle> rects = new ArrayList<>();
+        if (walls != null) {
+            for (PVEWall wall : walls) {
+                if (wall.isSolid()) {
+                    rects.add(new Rectangle(wall.getCollisionBounds()));
+                } else {
+                    for (Rectangle segment : wall.getSegments()) {
+                        rects.add(new Rectangle(segment));
+                    }
+                }
+            }
+        }
+        return new WallGrid(rects);
+    }
+}
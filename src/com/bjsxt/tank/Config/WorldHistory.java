@@ -0,0 +1,235 @@
+package src.com.bjsxt.tank.Config;
+
+import src.com.bjsxt.tank.InterFace.Bullet;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * 最近若干秒的世界状态历史（环形缓冲）
+ * 模拟线程每个逻辑帧记录一帧：坦克的位置、角度和生命值，子弹的位置和反弹次数，以及爆炸动画帧；
+ * 所有数组在创建时按容量一次分配，记录时不再分配对象，写满后覆盖最旧的一帧。
+ * 每帧的坦克、子弹和爆炸数量有上限，超出的部分不记录。用于击杀回放和调试时的回看
+ */
+public class WorldHistory {
+    private final int capacity;
+    private final int maxTanks;
+    private final int maxBullets;
+    private final int maxExplosions;
+
+    private final long[] ticks;
+
+    private final int[] tankCount;
+    private final int[] tankX, tankY;
+    private final int[] tankWidth, tankHeight;
+    private final int[] tankHealth;
+    private final double[] tankAngle;
+    private final SpriteAtlas[] tankSprite;
+    private final int[] tankFrame;
+    private final Image[] tankImage;
+
+    private final int[] bulletCount;
+    private final float[] bulletX, bulletY;
+    private final int[] bulletRadius;
+    private final int[] bulletBounce;
+    private final Color[] bulletColor;
+
+    private final int[] explosionCount;
+    private final Image[] explosionImage;
+    private final int[] explosionX, explosionY;
+
+    private int head;   // 下一个写入的位置
+    private int size;   // 已记录的帧数
+    private boolean writing;
+
+    /**
+     * @param capacity 最多保存的帧数
+     * @param maxTanks 每帧最多记录的坦克数
+     * @param maxBullets 每帧最多记录的子弹数
+     * @param maxExplosions 每帧最多记录的爆炸数
+     */
+    public WorldHistory(int capacity, int maxTanks, int maxBullets, int maxExplosions) {
+        this.capacity = Math.max(1, capacity);
+        this.maxTanks = maxTanks;
+        this.maxBullets = maxBullets;
+        this.maxExplosions = maxExplosions;
+
+        int n = this.capacity;
+        ticks = new long[n];
+
+        tankCount = new int[n];
+        tankX = new int[n * maxTanks];
+        tankY = new int[n * maxTanks];
+        tankWidth = new int[n * maxTanks];
+        tankHeight = new int[n * maxTanks];
+        tankHealth = new int[n * maxTanks];
+        tankAngle = new double[n * maxTanks];
+        tankSprite = new SpriteAtlas[n * maxTanks];
+        tankFrame = new int[n * maxTanks];
+        tankImage = new Image[n * maxTanks];
+
+        bulletCount = new int[n];
+        bulletX = new float[n * maxBullets];
+        bulletY = new float[n * maxBullets];
+        bulletRadius = new int[n * maxBullets];
+        bulletBounce = new int[n * maxBullets];
+        bulletColor = new Color[n * maxBullets];
+
+        explosionCount = new int[n];
+        explosionImage = new Image[n * maxExplosions];
+        explosionX = new int[n * maxExplosions];
+        explosionY = new int[n * maxExplosions];
+    }
+
+    /**
+     * 开始记录一帧，覆盖最旧的一帧
+     */
+    public void beginFrame(long tick) {
+        ticks[head] = tick;
+        tankCount[head] = 0;
+        bulletCount[head] = 0;
+        explosionCount[head] = 0;
+        writing = true;
+    }
+
+    /**
+     * 记录一辆存活的坦克
+     */
+    public void addTank(AbstractTank tank) {
+        if (!writing || tank == null || !tank.isAlive()) return;
+        int count = tankCount[head];
+        if (count >= maxTanks) return;
+        // 先取图像：坦克在第一次取图像时才加载图集
+        Image image = tank.getCurrentImage();
+        if (image == null) return;
+        int i = head * maxTanks + count;
+        tankX[i] = tank.x;
+        tankY[i] = tank.y;
+        tankWidth[i] = tank.width;
+        tankHeight[i] = tank.height;
+        tankHealth[i] = tank.health;
+        tankAngle[i] = tank.getAngle();
+        tankSprite[i] = tank.getSprite();
+        tankFrame[i] = tank.getSpriteFrame();
+        tankImage[i] = image;
+        tankCount[head] = count + 1;
+    }
+
+    /**
+     * 记录一组子弹中仍然有效的子弹
+     */
+    public void addBullets(List<? extends Bullet> list) {
+        if (!writing) return;
+        int count = bulletCount[head];
+        for (int k = 0, n = list.size(); k < n && count < maxBullets; k++) {
+            Bullet bullet = list.get(k);
+            if (!bullet.isActive()) continue;
+            int i = head * maxBullets + count++;
+            bulletX[i] = (float) bullet.getCenterX();
+            bulletY[i] = (float) bullet.getCenterY();
+            bulletRadius[i] = bullet.getRadius();
+            bulletBounce[i] = bullet.getBounceCount();
+            bulletColor[i] = bullet.getColor();
+        }
+        bulletCount[head] = count;
+    }
+
+    /**
+     * 记录一个爆炸动画帧，坐标为图像左上角
+     */
+    public void addExplosion(Image frame, int x, int y) {
+        if (!writing) return;
+        int count = explosionCount[head];
+        if (count >= maxExplosions) return;
+        int i = head * maxExplosions + count;
+        explosionImage[i] = frame;
+        explosionX[i] = x;
+        explosionY[i] = y;
+        explosionCount[head] = count + 1;
+    }
+
+    /**
+     * 结束当前帧
+     */
+    public void endFrame() {
+        if (!writing) return;
+        writing = false;
+        head = (head + 1) % capacity;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    /**
+     * 清空历史，例如开始新的一局时
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        writing = false;
+    }
+
+    /**
+     * 已记录的帧数
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 把历史中的一帧转换为可绘制的快照
+     * @param framesAgo 0为最近一帧，不能超过 size() - 1
+     * @param withDebugText 是否附带各坦克生命值和子弹反弹次数的文本
+     */
+    public WorldSnapshot toSnapshot(int framesAgo, boolean withDebugText) {
+        int frame = index(framesAgo);
+        WorldSnapshot.Builder builder = new WorldSnapshot.Builder();
+        StringBuilder text = withDebugText ? new StringBuilder() : null;
+        if (text != null) {
+            text.append("回看: 第 ").append(ticks[frame]).append(" 帧（")
+                .append(String.format("%.2f", framesAgo / (double) SimClock.TICK_RATE)).append(" 秒前）\n");
+        }
+
+        for (int k = 0; k < tankCount[frame]; k++) {
+            int i = frame * maxTanks + k;
+            builder.addTank(tankSprite[i], tankFrame[i], tankImage[i], tankX[i], tankY[i],
+                    tankWidth[i], tankHeight[i], tankAngle[i]);
+            if (text != null) {
+                text.append("坦克").append(k + 1).append(": (").append(tankX[i]).append(",").append(tankY[i])
+                    .append(") 角度: ").append(Math.round(Math.toDegrees(tankAngle[i])))
+                    .append(" 生命值: ").append(tankHealth[i]).append('\n');
+            }
+        }
+
+        int maxBounce = 0;
+        for (int k = 0; k < bulletCount[frame]; k++) {
+            int i = frame * maxBullets + k;
+            builder.addBullet((int) bulletX[i], (int) bulletY[i], bulletRadius[i], bulletColor[i]);
+            maxBounce = Math.max(maxBounce, bulletBounce[i]);
+        }
+        if (text != null) {
+            text.append("子弹: ").append(bulletCount[frame]).append(" 最多反弹: ").append(maxBounce).append('\n');
+        }
+
+        for (int k = 0; k < explosionCount[frame]; k++) {
+            int i = frame * maxExplosions + k;
+            builder.addExplosion(explosionImage[i], explosionX[i], explosionY[i]);
+        }
+
+        if (text != null) {
+            builder.setDebugText(text.toString());
+        }
+        return builder.build();
+    }
+
+    private int index(int framesAgo) {
+        if (framesAgo < 0 || framesAgo >= size) {
+            throw new IndexOutOfBoundsException("framesAgo: " + framesAgo + ", size: " + size);
+        }
+        return ((head - 1 - framesAgo) % capacity + capacity) % capacity;
+    }
+}
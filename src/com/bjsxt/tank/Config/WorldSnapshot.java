@@ -0,0 +1,195 @@
+package src.com.bjsxt.tank.Config;
+
+import src.com.bjsxt.tank.InterFace.Bullet;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 世界状态快照（不可变）
+ * 模拟线程每个逻辑帧结束时生成一份，渲染线程只读取快照绘制，两边不共享可变对象
+ */
+public final class WorldSnapshot {
+    public static final WorldSnapshot EMPTY = new Builder().build();
+
+    private final TankView[] tanks;
+    private final BulletView[] bullets;
+    private final ImageView[] explosions;
+    private final String debugText;
+
+    private WorldSnapshot(Builder builder) {
+        this.tanks = builder.tanks.toArray(new TankView[0]);
+        this.bullets = builder.bullets.toArray(new BulletView[0]);
+        this.explosions = builder.explosions.toArray(new ImageView[0]);
+        this.debugText = builder.debugText;
+    }
+
+    /**
+     * 绘制快照
+     * @param alpha 渲染插值系数，坦克位置在上一帧与当前帧之间插值
+     */
+    public void draw(Graphics g, double alpha) {
+        for (TankView tank : tanks) {
+            tank.draw(g, alpha);
+        }
+        if (bullets.length > 0) {
+            Graphics2D g2d = (Graphics2D) g.create();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (BulletView bullet : bullets) {
+                bullet.draw(g2d);
+            }
+            g2d.dispose();
+        }
+        // 最后绘制爆炸效果（最高优先级）
+        for (ImageView explosion : explosions) {
+            g.drawImage(explosion.image, explosion.x, explosion.y, null);
+        }
+    }
+
+    public String getDebugText() {
+        return debugText;
+    }
+
+    /**
+     * 坦克绘制信息
+     */
+    private static final class TankView {
+        private final SpriteAtlas sprite;
+        private final int frame;
+        private final Image image;
+        private final int prevX, prevY;
+        private final int x, y;
+        private final int width, height;
+        private final double angle;
+
+        TankView(AbstractTank tank, Image image) {
+            this(tank.getSprite(), tank.getSpriteFrame(), image, tank.prevX, tank.prevY,
+                    tank.x, tank.y, tank.width, tank.height, tank.getAngle());
+        }
+
+        TankView(SpriteAtlas sprite, int frame, Image image, int prevX, int prevY,
+                 int x, int y, int width, int height, double angle) {
+            this.sprite = sprite;
+            this.frame = frame;
+            this.image = image;
+            this.prevX = prevX;
+            this.prevY = prevY;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.angle = angle;
+        }
+
+        void draw(Graphics g, double alpha) {
+            int drawX = AbstractTank.interpolate(prevX, x, alpha);
+            int drawY = AbstractTank.interpolate(prevY, y, alpha);
+            if (sprite != null) {
+                // 预旋转图集：不缩放的直接贴图
+                sprite.draw(g, frame, drawX + width / 2, drawY + height / 2, angle);
+            } else {
+                AbstractTank.drawRotated(g, image, drawX + width / 2, drawY + height / 2, width, height, angle);
+            }
+        }
+    }
+
+    /**
+     * 子弹绘制信息
+     */
+    private static final class BulletView {
+        private final int x, y;
+        private final int radius;
+        private final Color color;
+
+        BulletView(Bullet bullet) {
+            this((int) bullet.getCenterX(), (int) bullet.getCenterY(), bullet.getRadius(), bullet.getColor());
+        }
+
+        BulletView(int x, int y, int radius, Color color) {
+            this.x = x;
+            this.y = y;
+            this.radius = radius;
+            this.color = color;
+        }
+
+        void draw(Graphics2D g2d) {
+            g2d.setColor(color);
+            g2d.fillOval(x - radius, y - radius, radius * 2, radius * 2);
+        }
+    }
+
+    /**
+     * 不旋转的图像（爆炸帧）
+     */
+    private static final class ImageView {
+        private final Image image;
+        private final int x, y;
+
+        ImageView(Image image, int x, int y) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * 快照构建器，只在模拟线程上使用
+     */
+    public static final class Builder {
+        private final List<TankView> tanks = new ArrayList<>();
+        private final List<BulletView> bullets = new ArrayList<>();
+        private final List<ImageView> explosions = new ArrayList<>();
+        private String debugText = "";
+
+        public Builder addTank(AbstractTank tank) {
+            if (tank != null && tank.isAlive()) {
+                Image image = tank.getCurrentImage();
+                if (image != null) {
+                    tanks.add(new TankView(tank, image));
+                }
+            }
+            return this;
+        }
+
+        public Builder addBullets(List<? extends Bullet> list) {
+            for (Bullet bullet : list) {
+                if (bullet.isActive()) {
+                    bullets.add(new BulletView(bullet));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * 加入一辆历史记录中的坦克，不做插值
+         */
+        public Builder addTank(SpriteAtlas sprite, int frame, Image image, int x, int y,
+                               int width, int height, double angle) {
+            tanks.add(new TankView(sprite, frame, image, x, y, x, y, width, height, angle));
+            return this;
+        }
+
+        /**
+         * 加入一颗历史记录中的子弹
+         */
+        public Builder addBullet(int x, int y, int radius, Color color) {
+            bullets.add(new BulletView(x, y, radius, color));
+            return this;
+        }
+
+        public Builder addExplosion(Image frame, int x, int y) {
+            explosions.add(new ImageView(frame, x, y));
+            return this;
+        }
+
+        public Builder setDebugText(String debugText) {
+            this.debugText = debugText != null ? debugText : "";
+            return this;
+        }
+
+        public WorldSnapshot build() {
+            return new WorldSnapshot(this);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.awt.*;
 public interface Bullet {
     int getSpeed();
     int getDamage();//伤害
+    // 不考虑碰撞，直线飞行一帧
     void updatePosition();
     //获取子弹的碰撞边界
     Rectangle getCollisionBounds();
@@ -12,12 +13,30 @@ public interface Bullet {
     boolean isActive();
     //标记子弹为无效状态
     void deactivate();
-    // 处理反弹
+    // 记录一次反弹（计数并损失速度），反弹方向由物理引擎设置
     void bounce();
     // 获取当前反弹次数
     int getBounceCount();
     // 检查是否可以继续反弹
     boolean canBounce();
+    // 经过一个逻辑帧，存活时间耗尽后自动失效
+    void updateLifetime();
+    // 从所属列表移除后归还到子弹池，之后不能再使用该对象
+    void release();
+
+    // 子弹中心坐标
+    double getCenterX();
+    double getCenterY();
+    // 移动到新的中心位置
+    void moveTo(double centerX, double centerY);
+    // 飞行方向（单位向量）
+    double getDirX();
+    double getDirY();
+    void setDirection(double dirX, double dirY);
+    // 子弹半径
+    int getRadius();
+    // 子弹颜色
+    Color getColor();
 
     void draw(Graphics g);
-}
\ No newline at end of file
+}
@@ -3,4 +3,9 @@ package src.com.bjsxt.tank.InterFace;
 //碰撞检测器
 public interface CollisionDetector {
     boolean isColliding(int x, int y, int width, int height);
-}
\ No newline at end of file
+
+    // 位置是否空闲（默认与碰撞检测相反）
+    default boolean isPositionFree(int x, int y, int width, int height) {
+        return !isColliding(x, y, width, height);
+    }
+}
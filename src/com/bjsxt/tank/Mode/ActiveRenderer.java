@@ -0,0 +1,101 @@
+package src.com.bjsxt.tank.Mode;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * 主动渲染画布
+ * 使用 BufferStrategy（优先页面翻转）由调用线程直接绘制并显示一帧，
+ * 不经过Swing的 repaint() 合并调度，帧时间由游戏循环控制
+ */
+public class ActiveRenderer extends Canvas {
+    private static final long serialVersionUID = 1L;
+
+    // 缓冲区数量：双缓冲
+    private static final int BUFFER_COUNT = 2;
+    // 渲染质量设置，每帧直接套用，不再逐项设置
+    private static final RenderingHints HINTS = new RenderingHints(null);
+
+    static {
+        HINTS.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        HINTS.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    }
+
+    /**
+     * 帧绘制回调，与 paintComponent 使用同一套 draw(Graphics) 方法
+     */
+    public interface Painter {
+        void paintFrame(Graphics2D g);
+    }
+
+    private final Painter painter;
+    private final Object lock = new Object();
+    private BufferStrategy strategy;
+
+    public ActiveRenderer(Painter painter, Color background) {
+        this.painter = painter;
+        setBackground(background);
+        // 不响应系统重绘请求，所有绘制都由 render() 完成
+        setIgnoreRepaint(true);
+        // 键盘焦点留在外层面板上，原有的按键监听和按键绑定继续有效
+        setFocusable(false);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        synchronized (lock) {
+            try {
+                createBufferStrategy(BUFFER_COUNT);
+                strategy = getBufferStrategy();
+            } catch (Exception e) {
+                System.err.println("创建缓冲策略失败: " + e.getMessage());
+                strategy = null;
+            }
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        synchronized (lock) {
+            if (strategy != null) {
+                strategy.dispose();
+                strategy = null;
+            }
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * 绘制并显示一帧，可以在任意线程调用
+     */
+    public void render() {
+        synchronized (lock) {
+            int width = getWidth();
+            int height = getHeight();
+            if (strategy == null || width <= 0 || height <= 0) return;
+
+            try {
+                do {
+                    do {
+                        Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                        try {
+                            g.setRenderingHints(HINTS);
+                            g.setColor(getBackground());
+                            g.fillRect(0, 0, width, height);
+                            painter.paintFrame(g);
+                        } finally {
+                            g.dispose();
+                        }
+                    } while (strategy.contentsRestored());
+                    strategy.show();
+                } while (strategy.contentsLost());
+                // 立即把绘制结果提交到屏幕，避免部分平台缓冲输出造成的抖动
+                Toolkit.getDefaultToolkit().sync();
+            } catch (IllegalStateException e) {
+                // 画布正在被移除，丢弃本帧
+                System.err.println("主动渲染失败: " + e.getMessage());
+            }
+        }
+    }
+}
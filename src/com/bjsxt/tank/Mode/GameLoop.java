@@ -0,0 +1,179 @@
+package src.com.bjsxt.tank.Mode;
+
+import src.com.bjsxt.tank.Config.SimClock;
+
+import java.awt.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 固定步长游戏循环
+ * 逻辑帧按固定频率推进（累加器 + 追帧上限），渲染帧按目标帧率调用并给出插值系数，
+ * 游戏速度不再受Swing定时器抖动和绘制耗时的影响。
+ * 逻辑帧在循环自己的线程上执行，其他线程需要修改游戏状态时通过 post() 提交任务
+ */
+public class GameLoop implements Runnable {
+    // 默认逻辑帧率，现有的移动速度等常量都是按这个频率的每帧数值设计的
+    public static final int DEFAULT_TICK_RATE = SimClock.TICK_RATE;
+    // 单次最多追赶的逻辑帧数，机器卡顿时丢弃多余的积压，避免越追越慢
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * 游戏循环回调
+     */
+    public interface Listener {
+        // 推进一个逻辑帧
+        void tick();
+
+        // 渲染一帧，alpha为当前时刻在上一逻辑帧与当前逻辑帧之间的位置 [0, 1)
+        void render(double alpha);
+    }
+
+    private final Listener listener;
+    private final int tickRate;
+    private final long tickNanos;
+    private final long frameNanos;
+    private volatile boolean running = false;
+    private volatile Thread thread;
+    // 其他线程提交的任务，在每个渲染帧开始、逻辑帧执行前统一处理
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    public GameLoop(Listener listener) {
+        this(DEFAULT_TICK_RATE, 0, listener);
+    }
+
+    /**
+     * @param frameRate 渲染帧率上限，不大于0时使用显示器刷新率
+     */
+    public GameLoop(int tickRate, int frameRate, Listener listener) {
+        this.listener = listener;
+        this.tickRate = tickRate;
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.frameNanos = 1_000_000_000L / (frameRate > 0 ? frameRate : defaultFrameRate());
+    }
+
+    /**
+     * 默认渲染帧率取显示器刷新率，无法获取时使用60
+     */
+    private static int defaultFrameRate() {
+        try {
+            if (!GraphicsEnvironment.isHeadless()) {
+                int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                        .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+                if (refreshRate != DisplayMode.REFRESH_RATE_UNKNOWN && refreshRate > 0) {
+                    return refreshRate;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("无法获取显示器刷新率: " + e.getMessage());
+        }
+        return 60;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "GameLoop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止循环；从其他线程调用时等待当前帧执行完毕，调用返回后游戏状态不再被循环线程访问
+     */
+    public void stop() {
+        Thread old;
+        synchronized (this) {
+            running = false;
+            old = thread;
+            thread = null;
+        }
+        if (old != null && old != Thread.currentThread()) {
+            old.interrupt();
+            try {
+                old.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 提交一个需要在模拟线程上执行的任务，循环暂停期间提交的任务在恢复后执行
+     */
+    public void post(Runnable task) {
+        tasks.add(task);
+    }
+
+    /**
+     * 当前线程是否为游戏循环线程
+     */
+    public boolean isLoopThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    @Override
+    public void run() {
+        Thread self = Thread.currentThread();
+        long previous = System.nanoTime();
+        long accumulator = 0;
+
+        // 停止后再次启动会创建新线程，旧线程发现自己不是当前循环线程时退出
+        while (running && thread == self) {
+            long frameStart = System.nanoTime();
+            accumulator += frameStart - previous;
+            previous = frameStart;
+
+            int ticks = (int) (accumulator / tickNanos);
+            if (ticks > MAX_CATCH_UP_TICKS) {
+                // 积压过多，只追赶上限帧数，其余时间直接丢弃
+                accumulator = accumulator % tickNanos + MAX_CATCH_UP_TICKS * tickNanos;
+                ticks = MAX_CATCH_UP_TICKS;
+            }
+            accumulator -= ticks * tickNanos;
+            double alpha = (double) accumulator / tickNanos;
+
+            if (!runFrame(self, ticks, alpha)) {
+                break;
+            }
+
+            // 等待到下一个渲染帧
+            long sleep = frameNanos - (System.nanoTime() - frameStart);
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            }
+        }
+    }
+
+    /**
+     * 在循环线程上处理提交的任务、执行逻辑帧并通知渲染，游戏状态只被这一个线程修改
+     */
+    private boolean runFrame(Thread self, int ticks, double alpha) {
+        try {
+            // 先确认循环仍在运行再取出任务，停止后留在队列中的任务等恢复后执行
+            Runnable task;
+            while (running && thread == self && (task = tasks.poll()) != null) {
+                task.run();
+            }
+            for (int i = 0; i < ticks && running && thread == self; i++) {
+                listener.tick();
+            }
+            if (running && thread == self) {
+                listener.render(alpha);
+            }
+        } catch (Exception e) {
+            System.err.println("游戏循环执行出错: " + e);
+            e.printStackTrace();
+        }
+        return running && thread == self;
+    }
+}
@@ -0,0 +1,57 @@
+package src.com.bjsxt.tank.Mode;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁键盘输入队列（单生产者单消费者）
+ * 事件派发线程写入按键事件，模拟线程在每个逻辑帧开始时统一取出处理
+ */
+public class InputQueue {
+    private static final int CAPACITY = 256; // 必须是2的幂
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * 按键事件处理
+     */
+    public interface Handler {
+        void onKey(int keyCode, boolean pressed);
+    }
+
+    private final int[] events = new int[CAPACITY];
+    private final AtomicLong head = new AtomicLong(); // 下一个读取位置（消费者）
+    private final AtomicLong tail = new AtomicLong(); // 下一个写入位置（生产者）
+
+    /**
+     * 写入按键事件，队列已满时丢弃并返回false
+     */
+    public boolean offer(int keyCode, boolean pressed) {
+        long t = tail.get();
+        if (t - head.get() >= CAPACITY) {
+            return false;
+        }
+        events[(int) (t & MASK)] = (keyCode << 1) | (pressed ? 1 : 0);
+        tail.lazySet(t + 1); // 发布事件
+        return true;
+    }
+
+    /**
+     * 取出并处理所有已写入的事件
+     */
+    public void drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        while (h < t) {
+            int event = events[(int) (h & MASK)];
+            h++;
+            head.lazySet(h);
+            handler.onKey(event >>> 1, (event & 1) != 0);
+        }
+    }
+
+    /**
+     * 丢弃所有未处理的事件（只能在消费者一侧或模拟线程停止时调用）
+     */
+    public void clear() {
+        head.set(tail.get());
+    }
+}
@@ -1,5 +1,6 @@
 package src.com.bjsxt.tank.Structure;
 
+import src.com.bjsxt.tank.Config.AssetManager;
 
 import javax.swing.*;
 import java.awt.*;
@@ -71,8 +72,8 @@ public class GameJMenuBar {
                 payDialog.setSize(500, 500);
                 JLabel textPay=new JLabel("付款码", SwingConstants.CENTER);
                 textPay.setFont(new Font("微软雅黑", Font.BOLD, 50));
-                ImageIcon icon = new ImageIcon(Objects.requireNonNull(getClass().getResource("/src/Images/12311.png")));
-                Image image = icon.getImage().getScaledInstance(300, 300, Image.SCALE_SMOOTH);
+                Image image = Objects.requireNonNull(
+                        AssetManager.getInstance().getScaledImage("/src/Images/12311.png", 300, 300));
                 JLabel imageLabel = new JLabel(new ImageIcon(image));
                 imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
 
@@ -89,7 +90,7 @@ public class GameJMenuBar {
                 JDialog telephone=new JDialog(frame,"联系方式",true);
                 telephone.setLayout(new BorderLayout(10, 10));
                 telephone.setSize(240, 240);
-                ImageIcon gifIcon = new ImageIcon(Objects.requireNonNull(getClass().getResource("/src/Images/Videos/R-C.gif")));
+                ImageIcon gifIcon = Objects.requireNonNull(AssetManager.getInstance().getIcon("/src/Images/Videos/R-C.gif"));
                 JLabel gifLabel = new JLabel(gifIcon);
                 gifLabel.setHorizontalAlignment(SwingConstants.CENTER);
                 telephone.add(gifLabel,BorderLayout.CENTER);
@@ -1,5 +1,6 @@
 package src.com.bjsxt.tank.Structure;
 
+import src.com.bjsxt.tank.Config.AssetManager;
 import src.com.bjsxt.tank.Config.ConfigTool;
 import src.com.bjsxt.tank.Config.PlayerTank;
 import src.com.bjsxt.tank.Config.SimpleCollisionDetector;
@@ -12,7 +13,6 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import javax.swing.*;
@@ -187,12 +187,10 @@ public class ModeCardLayOut {
             //添加坦克图片
             String tankImagePath="/src/Images/TankImage/tank"+(i+1)+"/up1.png";
             try{
-                URL tankImageUrl=ModeCardLayOut.class.getResource(tankImagePath);
-                if(tankImageUrl==null){
+                Image tankImage = AssetManager.getInstance().getScaledImage(tankImagePath, 150, 150);
+                if(tankImage==null){
                     throw new IOException("图片不存在: " + tankImagePath);
                 }
-                ImageIcon tankImageIcon = new ImageIcon(tankImageUrl);
-                Image tankImage = tankImageIcon.getImage().getScaledInstance(150, 150, Image.SCALE_FAST);
                 JLabel imageLabel = new JLabel(new ImageIcon(tankImage));
                 tankPanel.add(label, BorderLayout.NORTH);
                 tankPanel.add(imageLabel, BorderLayout.CENTER);
@@ -281,7 +279,7 @@ public class ModeCardLayOut {
         beatNumLabel.setForeground(Color.RED);
         beatNumLabel.setHorizontalAlignment(JLabel.CENTER);
         beatNumLabel.setVerticalAlignment(JLabel.CENTER);
-        JLabel healthLabel=new JLabel("<html><div style='text-align: center;'>生<br>命<br>值<br>"+ PlayerTank.getHealth() + "</html>");
+        JLabel healthLabel=new JLabel("<html><div style='text-align: center;'>生<br>命<br>值<br>"+ PlayerTank.MAX_HEALTH + "</html>");
         healthLabel.setFont(new Font("华文行楷", Font.BOLD, 30));
         healthLabel.setForeground(Color.RED);
         healthLabel.setHorizontalAlignment(JLabel.CENTER);
@@ -11,6 +11,8 @@ public class PVEWall {
     private static final int MIN_HEIGHT = 30;
     private static final int MAX_HEIGHT = 120;
     private static final int MIN_GAP = 100; // 最小间隙要求
+    private static final Color WALL_COLOR = new Color(230, 230, 230); // 更亮的灰白色
+    private static final Color BORDER_COLOR = new Color(160, 160, 160); // 更暗的边框色
     
     // 墙体类型
     private static final int TYPE_L = 0;    // L形墙体
@@ -152,9 +154,10 @@ public class PVEWall {
     }
 
     /**
-     * 生成适合游戏区域大小的墙体集合
+     * 生成适合游戏区域大小的墙体集合，相同的随机数序列得到相同的墙体
      */
-    public static PVEWall[] generateWalls(int areaWidth, int areaHeight, Rectangle playerPos, Rectangle aiPos) {
+    public static PVEWall[] generateWalls(int areaWidth, int areaHeight, Rectangle playerPos, Rectangle aiPos,
+                                          Random random) {
         // 减小网格大小，增加网格数量
         int gridSize = 120; // 从150减小到120
         int cols = Math.max(4, areaWidth / gridSize);
@@ -172,12 +175,11 @@ public class PVEWall {
         markTankPosition(occupied, aiPos, gridSize, cols, rows);
         
         // 增加尝试次数，给算法更多放置墙体的机会
-        Random random = new Random();
         int attempts = 0;
         int maxAttempts = cols * rows * 3; // 从2倍增加到3倍
         
         // 确保通道 - 创建预定义的通道图案
-        createPathways(occupied, cols, rows);
+        createPathways(occupied, cols, rows, random);
         
         // 尝试放置墙体
         while (wallList.size() < maxWalls && attempts < maxAttempts) {
@@ -217,13 +219,13 @@ public class PVEWall {
                     wallList.add(wall);
                     
                     // 标记此位置为已占用
-                    markOccupiedArea(occupied, gridX, gridY, cols, rows);
+                    markOccupiedArea(occupied, gridX, gridY, cols, rows, random);
                 }
             }
         }
         
         // 添加额外的小型墙体填充空白区域
-        addSmallWalls(wallList, occupied, gridSize, cols, rows, areaWidth, areaHeight, playerPos, aiPos);
+        addSmallWalls(wallList, occupied, gridSize, cols, rows, areaWidth, areaHeight, playerPos, aiPos, random);
         
         // 添加围墙
         addBoundaryWalls(wallList, areaWidth, areaHeight);
@@ -234,7 +236,7 @@ public class PVEWall {
     /**
      * 创建预定义的通道图案，确保地图有足够的通行空间
      */
-    private static void createPathways(boolean[][] occupied, int cols, int rows) {
+    private static void createPathways(boolean[][] occupied, int cols, int rows, Random rand) {
         // 中央十字通道
         int midX = cols / 2;
         int midY = rows / 2;
@@ -250,8 +252,6 @@ public class PVEWall {
         }
         
         // 随机添加一些额外通道
-        Random rand = new Random();
-        
         // 额外的横向通道
         int extraHorizontal = rand.nextInt(rows-4) + 2; // 避开边缘和中心
         if (extraHorizontal == midY) extraHorizontal = (extraHorizontal + 1) % rows;
@@ -272,8 +272,7 @@ public class PVEWall {
      */
     private static void addSmallWalls(List<PVEWall> wallList, boolean[][] occupied, int gridSize,
                                  int cols, int rows, int areaWidth, int areaHeight,
-                                 Rectangle playerPos, Rectangle aiPos) {
-        Random random = new Random();
+                                 Rectangle playerPos, Rectangle aiPos, Random random) {
         int smallWallSize = 25; // 小型墙体尺寸
         int minGap = 75; // 减小小型墙体的间隙要求
         
@@ -380,7 +379,7 @@ public class PVEWall {
     /**
      * 修改标记已占用区域方法 - 减少标记范围，允许更密集放置
      */
-    private static void markOccupiedArea(boolean[][] occupied, int x, int y, int cols, int rows) {
+    private static void markOccupiedArea(boolean[][] occupied, int x, int y, int cols, int rows, Random random) {
         // 标记当前位置为已占用
         occupied[x][y] = true;
         
@@ -398,7 +397,7 @@ public class PVEWall {
             int ny = y + dir[1];
             if (nx >= 0 && nx < cols && ny >= 0 && ny < rows) {
                 // 设置70%的概率标记相邻格子，增加随机性
-                if (Math.random() < 0.7) {
+                if (random.nextDouble() < 0.7) {
                     occupied[nx][ny] = true;
                 }
             }
@@ -451,20 +450,20 @@ public class PVEWall {
     public void draw(Graphics g) {
         // 确保墙体渲染清晰可见
         // 设置墙体填充颜色
-        g.setColor(new Color(230, 230, 230)); // 更亮的灰白色
+        g.setColor(WALL_COLOR);
         
         if (isSolid) {
             // 实心墙直接填充整个矩形
             g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
             // 添加边框使墙体更清晰
-            g.setColor(new Color(160, 160, 160)); // 更暗的边框色
+            g.setColor(BORDER_COLOR);
             g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
         } else {
             // 复杂形状墙体分段绘制
             for (Rectangle segment : segments) {
                 g.fillRect(segment.x, segment.y, segment.width, segment.height);
                 // 添加边框
-                g.setColor(new Color(160, 160, 160)); // 更暗的边框色
+                g.setColor(BORDER_COLOR);
                 g.drawRect(segment.x, segment.y, segment.width, segment.height);
             }
         }
@@ -0,0 +1,81 @@
+package src.com.bjsxt.tank.Structure;
+
+import java.awt.*;
+import java.awt.image.VolatileImage;
+
+/**
+ * 静态墙体图层缓存
+ * 把整层墙体绘制到一张加速图像（VolatileImage）中，每帧只需一次 drawImage；
+ * 墙体列表被替换或面板尺寸变化时才重新绘制，显存内容丢失时自动恢复
+ */
+public class WallLayer {
+    /**
+     * 墙体绘制回调，只在重建缓存时调用
+     */
+    public interface Painter {
+        void paint(Graphics g);
+    }
+
+    private final Component owner;
+    private VolatileImage image;
+    private Object cachedWalls; // 缓存内容对应的墙体列表（按引用比较）
+
+    public WallLayer(Component owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * 绘制墙体图层
+     * @param walls 当前墙体列表，列表对象被替换时重建缓存
+     * @param painter 把所有墙体绘制到给定 Graphics 上
+     */
+    public synchronized void draw(Graphics g, Object walls, int width, int height, Painter painter) {
+        if (walls == null || width <= 0 || height <= 0) return;
+
+        GraphicsConfiguration gc = owner.getGraphicsConfiguration();
+        if (gc == null) {
+            // 组件尚未显示，无法创建加速图像，直接绘制
+            painter.paint(g);
+            return;
+        }
+
+        do {
+            boolean rebuild = walls != cachedWalls;
+            if (image != null && (image.getWidth() != width || image.getHeight() != height)) {
+                image.flush();
+                image = null;
+            }
+            if (image != null) {
+                int status = image.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    image.flush();
+                    image = null;
+                } else if (status == VolatileImage.IMAGE_RESTORED) {
+                    rebuild = true;
+                }
+            }
+            if (image == null) {
+                image = gc.createCompatibleVolatileImage(width, height, Transparency.BITMASK);
+                rebuild = true;
+            }
+            if (rebuild) {
+                render(painter, width, height);
+                cachedWalls = walls;
+            }
+            g.drawImage(image, 0, 0, null);
+        } while (image.contentsLost());
+    }
+
+    private void render(Painter painter, int width, int height) {
+        Graphics2D g2d = image.createGraphics();
+        try {
+            // 清空为透明背景
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, width, height);
+            g2d.setComposite(AlphaComposite.SrcOver);
+            painter.paint(g2d);
+        } finally {
+            g2d.dispose();
+        }
+    }
+}
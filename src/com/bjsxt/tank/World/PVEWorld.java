@@ -0,0 +1,619 @@
+package src.com.bjsxt.tank.World;
+
+import src.com.bjsxt.tank.Config.*;
+import src.com.bjsxt.tank.InterFace.Bullet;
+import src.com.bjsxt.tank.InterFace.CollisionDetector;
+import src.com.bjsxt.tank.Structure.PVEWall;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 人机对战的游戏世界
+ * 持有玩家坦克、AI坦克、子弹、墙体和比分，由调用方按逻辑帧推进，不依赖任何界面组件；
+ * PVEMode 只负责输入、绘制和界面提示，没有显示设备时也可以直接运行对局
+ */
+public class PVEWorld {
+    public static final int SCORE_TO_WIN = 3;
+    public static final int SCORE_TO_LOSE = 10;
+    // 坦克被击毁后等待重生的逻辑帧数（约0.8秒）
+    private static final int RESPAWN_TICKS = 48;
+    private static final int DEFAULT_WIDTH = 800;
+    private static final int DEFAULT_HEIGHT = 600;
+    private static final int AI_SIZE = 64;
+
+    /**
+     * 世界事件回调，在推进逻辑帧的线程上调用
+     */
+    public interface Listener {
+        // 关卡或比分变化
+        default void scoreChanged(int level, int playerScore, int enemyScore) {
+        }
+
+        // 玩家失败，对局结束
+        default void gameOver(int level, int playerScore, int enemyScore) {
+        }
+
+        // 坦克被子弹击毁
+        default void tankDestroyed(AbstractTank tank) {
+        }
+    }
+
+    private final CollisionDetector detector;
+    private final BulletPhysics bulletPhysics;
+    private final BulletPool bulletPool;
+    private final ExplosionManager explosions;
+    private final GameRandom random; // 本局所有随机数的来源，坦克各自使用拆分出的子序列
+    private final SimClock clock = new SimClock();
+    private Listener listener = new Listener() { };
+
+    private int width = DEFAULT_WIDTH;
+    private int height = DEFAULT_HEIGHT;
+    private PlayerTank player;
+    private AITank aiTank;
+    private volatile List<PVEWall> walls = new ArrayList<>(); // 重新生成时整体替换，绘制线程不会看到修改中的列表
+
+    private int level = 1;
+    private int playerScore;
+    private int enemyScore;
+    private boolean over;
+    // 等待重生的剩余逻辑帧数，0表示没有等待
+    private int playerRespawnTicks;
+    private int aiRespawnTicks;
+
+    /**
+     * 供界面使用的世界，使用自己的子弹池和爆炸效果；两种模式的游戏循环各在自己的线程上运行，不能共享
+     */
+    public PVEWorld(CollisionDetector detector) {
+        this(detector, new BulletPool(ConfigTool.getBulletPoolCapacity()), new ExplosionManager(), new GameRandom());
+    }
+
+    /**
+     * @param bulletPool 子弹池，同时运行多个世界时各自使用独立的子弹池
+     * @param explosions 爆炸效果，同上
+     */
+    public PVEWorld(CollisionDetector detector, BulletPool bulletPool, ExplosionManager explosions, GameRandom random) {
+        this.detector = detector;
+        this.bulletPool = bulletPool;
+        this.explosions = explosions;
+        this.random = random;
+        this.bulletPhysics = detector instanceof SimpleCollisionDetector
+                ? new BulletPhysics((SimpleCollisionDetector) detector) : null;
+        updateCollisionDetector();
+        reset();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener != null ? listener : new Listener() { };
+    }
+
+    /**
+     * 设置关卡和比分，例如从存档继续
+     */
+    public void setProgress(int level, int playerScore, int enemyScore) {
+        this.level = level;
+        this.playerScore = playerScore;
+        this.enemyScore = enemyScore;
+    }
+
+    /**
+     * 调整游戏区域大小，并把超出边界的坦克移回区域内
+     */
+    public void resize(int width, int height) {
+        this.width = width > 0 ? width : DEFAULT_WIDTH;
+        this.height = height > 0 ? height : DEFAULT_HEIGHT;
+        if (detector instanceof SimpleCollisionDetector) {
+            ((SimpleCollisionDetector) detector).setGameAreaSize(new Dimension(this.width, this.height));
+        }
+        clampTanks();
+    }
+
+    /**
+     * 回到开局前的状态：清空墙体，玩家坦克放在区域外，AI坦克重新放置（保留学习数据）
+     */
+    public void reset() {
+        over = false;
+        playerRespawnTicks = 0;
+        aiRespawnTicks = 0;
+        walls = new ArrayList<>();
+        updateCollisionDetector();
+
+        // 创建玩家坦克但位置在屏幕外（隐藏），旧坦克的子弹归还子弹池
+        replacePlayer(-100, -100);
+
+        // 只在第一次创建AI坦克，之后只重置状态和位置
+        if (aiTank == null) {
+            aiTank = new AITank(0, 0, detector);
+            attach(aiTank);
+        }
+        placeAITank();
+    }
+
+    /**
+     * 以指定种子开始一局，相同的种子和相同的输入序列重现同一局
+     * 时钟归零，两辆坦克重新创建，AI坦克只保留学习数据；开局状态只取决于种子、关卡比分、区域大小和学习数据
+     */
+    public void startRound(long seed) {
+        random.setSeed(seed);
+        clock.setTick(0);
+        replacePlayer(-100, -100);
+        replaceAITank();
+        startRound();
+    }
+
+    /**
+     * 开始一局：放置AI坦克，生成墙体并随机放置玩家坦克
+     */
+    public void startRound() {
+        over = false;
+        walls = new ArrayList<>();
+        placeAITank();
+        generateWalls();
+        randomizePlayerPosition();
+        clampTanks();
+    }
+
+    /**
+     * 按当前区域大小和坦克位置重新生成墙体
+     */
+    public void generateWalls() {
+        // 创建玩家和AI坦克的碰撞边界，墙体不会生成在坦克位置
+        Rectangle playerBounds = player != null ?
+                new Rectangle(player.getX(), player.getY(), player.getWidth(), player.getHeight()) :
+                new Rectangle(50, 50, 64, 64);
+
+        Rectangle aiBounds = aiTank != null && aiTank.isAlive() ?
+                new Rectangle(aiTank.getX(), aiTank.getY(), aiTank.getWidth(), aiTank.getHeight()) :
+                null;
+
+        PVEWall[] generatedWalls = PVEWall.generateWalls(width, height, playerBounds, aiBounds, random);
+
+        // 生成新的墙体列表后整体替换
+        ArrayList<PVEWall> newWalls = new ArrayList<>();
+        Collections.addAll(newWalls, generatedWalls);
+        walls = newWalls;
+        updateCollisionDetector();
+    }
+
+    private void updateCollisionDetector() {
+        if (detector instanceof SimpleCollisionDetector) {
+            SimpleCollisionDetector simpleDetector = (SimpleCollisionDetector) detector;
+            simpleDetector.setGameAreaSize(new Dimension(width, height));
+            simpleDetector.setPVEWalls(new ArrayList<>(walls));
+        }
+    }
+
+    /**
+     * 处理一个按键事件
+     */
+    public void applyKey(int keyCode, boolean pressed) {
+        if (player != null && player.isAlive()) {
+            if (pressed) {
+                player.handleKeyPress(keyCode);
+            } else {
+                player.handleKeyRelease(keyCode);
+            }
+        }
+    }
+
+    /**
+     * 推进一个逻辑帧
+     */
+    public void tick() {
+        if (over) return;
+        clock.advance();
+        player.savePreviousPosition();
+        aiTank.savePreviousPosition();
+
+        // 更新玩家坦克移动 - 只在存活时更新移动
+        if (player.isAlive()) {
+            player.updateMovement();
+        }
+        // 无论玩家是否存活，都更新子弹
+        player.updateBullets();
+
+        // 更新AI坦克
+        if (aiTank.isAlive()) {
+            aiTank.updateAI(player, level);
+        }
+        // 无论AI是否存活，都更新其子弹
+        aiTank.updateBullets();
+
+        // 移动子弹并处理与墙体/边界的碰撞
+        moveBullets();
+        // 检测碰撞
+        checkCollisions();
+        if (over) return;
+
+        // 处理等待中的重生
+        updateRespawns();
+
+        // 检查得分情况
+        checkScores();
+
+        // 更新爆炸效果
+        explosions.update();
+    }
+
+    /**
+     * 推进所有子弹：移动并处理与墙体/边界的反弹
+     */
+    private void moveBullets() {
+        for (PlayerBullet bullet : player.getBullets()) {
+            stepBullet(bullet);
+        }
+        for (EnemyBullet bullet : aiTank.getBullets()) {
+            stepBullet(bullet);
+        }
+    }
+
+    private void stepBullet(Bullet bullet) {
+        // 按逻辑帧计算存活时间，过期的子弹在下一次 updateBullets() 时移除
+        bullet.updateLifetime();
+        if (bulletPhysics != null) {
+            bulletPhysics.step(bullet);
+        } else {
+            bullet.updatePosition();
+        }
+    }
+
+    /**
+     * 检查子弹与坦克的碰撞
+     */
+    private void checkCollisions() {
+        // 玩家子弹击中AI
+        if (player.isAlive() && aiTank.isAlive()) {
+            for (PlayerBullet bullet : player.getBullets()) {
+                if (!bullet.isActive()) continue;
+                if (bullet.getCollisionBounds().intersects(aiTank.getCollisionBounds())) {
+                    bullet.deactivate();
+                    createExplosion(aiTank);
+
+                    // 设置AI为死亡状态，并让AI从失败中学习
+                    aiTank.setAlive(false);
+                    aiTank.onDeath(player);
+                    listener.tankDestroyed(aiTank);
+
+                    playerScore++;
+                    listener.scoreChanged(level, playerScore, enemyScore);
+
+                    // 延迟重生AI坦克
+                    aiRespawnTicks = RESPAWN_TICKS;
+                    break;
+                }
+            }
+        }
+
+        // AI子弹击中玩家
+        if (aiTank.isAlive() && player.isAlive()) {
+            Rectangle playerBounds = player.getCollisionBounds();
+            for (EnemyBullet bullet : aiTank.getBullets()) {
+                if (!bullet.isActive()) continue;
+
+                Rectangle bulletBounds = bullet.getCollisionBounds();
+                if (bulletBounds != null && bulletBounds.intersects(playerBounds)) {
+                    bullet.deactivate();
+                    createExplosion(player);
+
+                    // 记录AI命中
+                    aiTank.registerHit();
+
+                    // 设置玩家死亡并重置键盘状态
+                    player.setAlive(false);
+                    player.resetKeyStates();
+                    listener.tankDestroyed(player);
+
+                    enemyScore++;
+                    listener.scoreChanged(level, playerScore, enemyScore);
+
+                    if (enemyScore >= SCORE_TO_LOSE) {
+                        gameOver();
+                        return;
+                    }
+
+                    // 延迟重生玩家
+                    playerRespawnTicks = RESPAWN_TICKS;
+                    break;
+                }
+            }
+        }
+    }
+
+    private void updateRespawns() {
+        if (aiRespawnTicks > 0 && --aiRespawnTicks == 0) {
+            respawnTank(aiTank);
+        }
+        if (playerRespawnTicks > 0 && --playerRespawnTicks == 0) {
+            respawnTank(player);
+        }
+    }
+
+    /**
+     * 为坦克创建爆炸效果
+     */
+    private void createExplosion(AbstractTank tank) {
+        int centerX = tank.getX() + tank.getWidth() / 2;
+        int centerY = tank.getY() + tank.getHeight() / 2;
+        // 爆炸尺寸为坦克尺寸的1.5倍
+        int explosionSize = (int) (Math.max(tank.getWidth(), tank.getHeight()) * 1.5);
+        explosions.createExplosion(centerX, centerY, explosionSize);
+    }
+
+    private void checkScores() {
+        if (playerScore >= SCORE_TO_WIN) {
+            advanceToNextLevel();
+        } else if (enemyScore >= SCORE_TO_LOSE) {
+            gameOver();
+        }
+    }
+
+    private void gameOver() {
+        if (over) return;
+        over = true;
+        explosions.clearAllExplosions();
+        listener.gameOver(level, playerScore, enemyScore);
+    }
+
+    /**
+     * 进入下一关：比分清零，重新生成墙体，AI坦克保留学习数据
+     */
+    private void advanceToNextLevel() {
+        level++;
+        playerScore = 0;
+        enemyScore = 0;
+        playerRespawnTicks = 0;
+        aiRespawnTicks = 0;
+
+        replacePlayer(50, 50);
+        walls = new ArrayList<>();
+        generateWalls();
+        placeAITank();
+
+        listener.scoreChanged(level, playerScore, enemyScore);
+    }
+
+    private void replacePlayer(int x, int y) {
+        if (player != null) {
+            player.clearBullets();
+        }
+        player = new PlayerTank(x, y, detector);
+        attach(player);
+    }
+
+    private void replaceAITank() {
+        AIDataStore.AIData learned = aiTank.exportLearnedData();
+        boolean persistent = aiTank.isPersistent();
+        aiTank.clearBullets();
+        aiTank = new AITank(0, 0, detector);
+        aiTank.setPersistent(persistent);
+        aiTank.importLearnedData(learned);
+        attach(aiTank);
+    }
+
+    // 让坦克使用本世界的子弹池、爆炸效果、时钟和一段独立的随机数
+    private void attach(AbstractTank tank) {
+        tank.attachTo(bulletPool, explosions);
+        tank.attachTo(clock, random.split());
+    }
+
+    /**
+     * 把坦克约束在游戏区域内
+     */
+    private void clampTanks() {
+        clamp(player);
+        clamp(aiTank);
+    }
+
+    private void clamp(AbstractTank tank) {
+        if (tank == null) return;
+        int x = Math.min(Math.max(tank.getX(), 0), width - tank.getWidth());
+        int y = Math.min(Math.max(tank.getY(), 0), height - tank.getHeight());
+        // 只有当坦克真的超出边界时才移动它
+        if (x != tank.getX() || y != tank.getY()) {
+            tank.setPosition(x, y);
+        }
+    }
+
+    /**
+     * 随机放置AI坦克并复活，找不到空位时放在右侧中间
+     */
+    private void placeAITank() {
+        int margin = 100;
+        int[] position = findOpenPosition(margin, width - margin - AI_SIZE, height / 2 - AI_SIZE / 2);
+        aiTank.setPosition(position[0], position[1]);
+        aiTank.revive();
+    }
+
+    /**
+     * 随机放置玩家坦克，找不到空位时放在左侧中间
+     */
+    private void randomizePlayerPosition() {
+        int margin = 100;
+        int[] position = findOpenPosition(margin, margin, height / 2);
+        player.setPosition(position[0], position[1]);
+    }
+
+    /**
+     * 在边距以内随机寻找不与墙体重叠的位置
+     */
+    private int[] findOpenPosition(int margin, int defaultX, int defaultY) {
+        final int MAX_ATTEMPTS = 50;
+        for (int attempts = 0; attempts < MAX_ATTEMPTS; attempts++) {
+            int newX = margin + random.nextInt(Math.max(1, width - 2 * margin - AI_SIZE));
+            int newY = margin + random.nextInt(Math.max(1, height - 2 * margin - AI_SIZE));
+            // 只检查墙体碰撞
+            if (!isPositionBlockedByWalls(newX, newY)) {
+                return new int[]{newX, newY};
+            }
+        }
+        return new int[]{defaultX, defaultY};
+    }
+
+    /**
+     * 检查位置是否被墙体或边界阻挡
+     */
+    private boolean isPositionBlockedByWalls(int x, int y) {
+        if (x < 0 || y < 0 || x + AI_SIZE > width || y + AI_SIZE > height) {
+            return true;
+        }
+        Rectangle newPos = new Rectangle(x, y, AI_SIZE, AI_SIZE);
+        for (PVEWall wall : walls) {
+            if (wall.getCollisionBounds().intersects(newPos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 重生坦克：随机寻找空位，玩家默认在左侧，AI默认在右侧
+     */
+    private void respawnTank(AbstractTank tank) {
+        int margin = 50;
+        int defaultX = tank instanceof PlayerTank ? margin : width - margin - tank.getWidth();
+        int[] position = findOpenPosition(margin, defaultX, height / 2);
+
+        tank.setPosition(position[0], position[1]);
+        tank.revive();
+
+        // 如果是玩家坦克，重置其键盘状态
+        if (tank instanceof PlayerTank) {
+            ((PlayerTank) tank).resetKeyStates();
+        }
+    }
+
+    /**
+     * 把坦克、子弹和爆炸加入快照
+     */
+    public void addToSnapshot(WorldSnapshot.Builder builder) {
+        builder.addTank(player).addTank(aiTank);
+        builder.addBullets(player.getBullets());
+        builder.addBullets(aiTank.getBullets());
+        explosions.addToSnapshot(builder);
+    }
+
+    /**
+     * 把坦克、子弹和爆炸记入历史
+     */
+    public void addToHistory(WorldHistory history) {
+        history.addTank(player);
+        history.addTank(aiTank);
+        history.addBullets(player.getBullets());
+        history.addBullets(aiTank.getBullets());
+        explosions.addToHistory(history);
+    }
+
+    /**
+     * 当前模拟状态的摘要，回放时与记录的关键帧比较，找出结果开始不一致的位置
+     */
+    public long stateHash() {
+        long h = clock.getTick();
+        h = h * 31 + level;
+        h = h * 31 + playerScore;
+        h = h * 31 + enemyScore;
+        h = h * 31 + playerRespawnTicks;
+        h = h * 31 + aiRespawnTicks;
+        h = hashTank(h, player);
+        h = hashTank(h, aiTank);
+        for (PlayerBullet bullet : player.getBullets()) {
+            h = hashBullet(h, bullet);
+        }
+        for (EnemyBullet bullet : aiTank.getBullets()) {
+            h = hashBullet(h, bullet);
+        }
+        return h;
+    }
+
+    private static long hashTank(long h, AbstractTank tank) {
+        h = h * 31 + tank.getX();
+        h = h * 31 + tank.getY();
+        h = h * 31 + Double.doubleToLongBits(tank.getAngle());
+        return h * 31 + (tank.isAlive() ? 1 : 0);
+    }
+
+    private static long hashBullet(long h, Bullet bullet) {
+        h = h * 31 + Double.doubleToLongBits(bullet.getCenterX());
+        h = h * 31 + Double.doubleToLongBits(bullet.getCenterY());
+        return h * 31 + (bullet.isActive() ? 1 : 0);
+    }
+
+    /**
+     * 生成调试信息文本
+     */
+    public String buildDebugText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("玩家位置: (").append(player.getX()).append(",").append(player.getY())
+          .append(") 角度: ").append(Math.toDegrees(player.getAngle())).append('\n');
+        sb.append("AI位置: (").append(aiTank.getX()).append(",").append(aiTank.getY())
+          .append(") 角度: ").append(Math.toDegrees(aiTank.getAngle())).append('\n');
+
+        // 显示AI调试信息
+        String aiInfo = aiTank.getAIDebugInfo();
+        if (aiInfo != null && !aiInfo.isEmpty()) {
+            sb.append(aiInfo);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 清除所有爆炸效果
+     */
+    public void clearEffects() {
+        explosions.clearAllExplosions();
+    }
+
+    /**
+     * 清空子弹和爆炸效果，两辆坦克的子弹归还子弹池
+     */
+    public void clear() {
+        player.clearBullets();
+        aiTank.clearBullets();
+        explosions.clearAllExplosions();
+    }
+
+    public CollisionDetector getDetector() {
+        return detector;
+    }
+
+    public PlayerTank getPlayer() {
+        return player;
+    }
+
+    public AITank getAITank() {
+        return aiTank;
+    }
+
+    public List<PVEWall> getWalls() {
+        return walls;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getPlayerScore() {
+        return playerScore;
+    }
+
+    public int getEnemyScore() {
+        return enemyScore;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    public long getTickCount() {
+        return clock.getTick();
+    }
+}
@@ -0,0 +1,499 @@
+package src.com.bjsxt.tank.World;
+
+import src.com.bjsxt.tank.Config.*;
+import src.com.bjsxt.tank.InterFace.Bullet;
+import src.com.bjsxt.tank.InterFace.CollisionDetector;
+import src.com.bjsxt.tank.Structure.PVPWall;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 闯关模式的游戏世界
+ * 持有玩家坦克、敌方坦克、子弹和墙体，由调用方按逻辑帧推进，不依赖任何界面组件；
+ * PVPMode 只负责输入、绘制和界面提示
+ */
+public class PVPWorld {
+    // 敌人全部被消灭后等待下一波的逻辑帧数（约1秒）
+    private static final int WAVE_DELAY_TICKS = 60;
+    // 区域小于该尺寸时（窗口尚未布局完成）不放置坦克
+    private static final int MIN_AREA_SIZE = 100;
+
+    /**
+     * 世界事件回调，在推进逻辑帧的线程上调用
+     */
+    public interface Listener {
+        // 击败数或玩家生命值变化
+        default void statsChanged(int beatNum, int health) {
+        }
+
+        // 玩家生命值耗尽，对局结束
+        default void gameOver(int beatNum) {
+        }
+    }
+
+    private final CollisionDetector detector;
+    private final BulletPhysics bulletPhysics;
+    private final BulletPool bulletPool;
+    private final ExplosionManager explosions;
+    private final GameRandom random; // 本局所有随机数的来源，坦克各自使用拆分出的子序列
+    private final SimClock clock = new SimClock();
+    private Listener listener = new Listener() { };
+
+    private int width;
+    private int height;
+    private PlayerTank player;
+    private final List<EnemyTank> enemies = new ArrayList<>();  // 敌方坦克列表
+    private final List<EnemyBullet> orphanedBullets = new ArrayList<>(); // 孤立子弹列表
+    private volatile List<PVPWall> walls = new ArrayList<>(); // 重新生成时整体替换
+    private final TankHitGrid<EnemyTank> enemyHitGrid = new TankHitGrid<>(); // 子弹命中粗筛网格
+    private final FlowField flowField = new FlowField(); // 围攻模式下所有敌人共享的流场
+    private boolean siegeMode; // 围攻模式
+    private int siegeEnemyCount = 200;
+
+    private int beatNum;
+    private boolean over;
+    // 等待下一波敌人的剩余逻辑帧数，0表示没有等待
+    private int waveDelayTicks;
+
+    /**
+     * 供界面使用的世界，使用自己的子弹池和爆炸效果；两种模式的游戏循环各在自己的线程上运行，不能共享
+     */
+    public PVPWorld(CollisionDetector detector) {
+        this(detector, new BulletPool(ConfigTool.getBulletPoolCapacity()), new ExplosionManager(), new GameRandom());
+    }
+
+    /**
+     * @param bulletPool 子弹池，同时运行多个世界时各自使用独立的子弹池
+     * @param explosions 爆炸效果，同上
+     */
+    public PVPWorld(CollisionDetector detector, BulletPool bulletPool, ExplosionManager explosions, GameRandom random) {
+        this.detector = detector;
+        this.bulletPool = bulletPool;
+        this.explosions = explosions;
+        this.random = random;
+        this.bulletPhysics = detector instanceof SimpleCollisionDetector
+                ? new BulletPhysics((SimpleCollisionDetector) detector) : null;
+
+        // 创建玩家坦克（暂时放在默认位置，区域大小确定后再调整）
+        player = createPlayer();
+        updateCollisionDetector();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener != null ? listener : new Listener() { };
+    }
+
+    /**
+     * 设置围攻模式，下一波敌人生效
+     * @param enemyCount 围攻模式每波敌人数量
+     */
+    public void setSiegeMode(boolean siegeMode, int enemyCount) {
+        this.siegeMode = siegeMode;
+        this.siegeEnemyCount = Math.max(1, enemyCount);
+    }
+
+    /**
+     * 调整游戏区域大小并重新生成墙体；第一次得到有效尺寸时放置玩家并创建敌人
+     */
+    public void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        generateWalls();
+
+        // 只有第一次调整大小时初始化坦克位置
+        if (enemies.isEmpty() && hasValidArea()) {
+            repositionPlayerTank();
+            createInitialEnemies();
+        }
+    }
+
+    private boolean hasValidArea() {
+        return width > MIN_AREA_SIZE && height > MIN_AREA_SIZE;
+    }
+
+    /**
+     * 以指定种子开始一局：时钟归零，清空现有敌人并换一辆新的玩家坦克，再按种子重新生成，
+     * 相同的种子和相同的输入序列重现同一局
+     */
+    public void startRound(long seed) {
+        random.setSeed(seed);
+        clock.setTick(0);
+        clear();
+        player = createPlayer();
+        startRound();
+    }
+
+    /**
+     * 开始一局：击败数清零，玩家回到中心，没有敌人时创建一波
+     */
+    public void startRound() {
+        over = false;
+        beatNum = 0;
+        repositionPlayerTank();
+        if (enemies.isEmpty()) {
+            createInitialEnemies();
+        }
+        listener.statsChanged(beatNum, player.getHealth());
+    }
+
+    /**
+     * 回到开局前的状态：清空敌人和子弹，换一辆满血的玩家坦克
+     */
+    public void reset() {
+        clear();
+        player = createPlayer();
+        beatNum = 0;
+        over = false;
+
+        // 仅创建敌方坦克，开始前不会推进
+        createInitialEnemies();
+    }
+
+    /**
+     * 清空敌人、子弹和爆炸效果
+     */
+    public void clear() {
+        player.clearBullets();
+        releaseEnemyBullets();
+        enemies.clear();
+        waveDelayTicks = 0;
+        explosions.clearAllExplosions();
+    }
+
+    private PlayerTank createPlayer() {
+        PlayerTank tank = new PlayerTank(50, 50, detector);
+        attach(tank);
+        return tank;
+    }
+
+    // 让坦克使用本世界的子弹池、爆炸效果、时钟和一段独立的随机数
+    private void attach(AbstractTank tank) {
+        tank.attachTo(bulletPool, explosions);
+        tank.attachTo(clock, random.split());
+    }
+
+    // 生成边界墙体和结构化墙体
+    private void generateWalls() {
+        List<PVPWall> newWalls = new ArrayList<>();
+        // 只有当游戏区域大小有效时才初始化墙体
+        if (width > 0 && height > 0) {
+            newWalls.addAll(PVPWall.createBoundaryWalls(width, height));
+            newWalls.addAll(PVPWall.createStructuredWalls(width, height));
+        }
+        walls = newWalls;
+        updateCollisionDetector();
+    }
+
+    private void updateCollisionDetector() {
+        if (detector instanceof SimpleCollisionDetector) {
+            SimpleCollisionDetector simpleDetector = (SimpleCollisionDetector) detector;
+            simpleDetector.setGameAreaSize(new Dimension(width, height));
+            simpleDetector.setWalls(walls);
+        }
+    }
+
+    /**
+     * 处理一个按键事件
+     */
+    public void applyKey(int keyCode, boolean pressed) {
+        if (pressed) {
+            player.handleKeyPress(keyCode);
+        } else {
+            player.handleKeyRelease(keyCode);
+        }
+    }
+
+    /**
+     * 推进一个逻辑帧
+     */
+    public void tick() {
+        if (over) return;
+        clock.advance();
+
+        // 添加玩家存活状态检查
+        if (player.getHealth() <= 0) {
+            gameOver();
+            return;
+        }
+
+        player.savePreviousPosition();
+        for (EnemyTank enemy : enemies) {
+            enemy.savePreviousPosition();
+        }
+
+        player.updateMovement(); // 更新玩家坦克
+        player.updateBullets(); // 更新玩家子弹
+
+        // 围攻模式：每帧只计算一次指向玩家的流场，所有敌人共享
+        FlowField field = updateFlowField();
+
+        // 更新所有敌方坦克
+        for (EnemyTank enemy : enemies) {
+            if (field != null) {
+                enemy.update(field); // 沿流场包围玩家
+            } else {
+                enemy.update();      // 更新敌方坦克(包括移动和射击)
+            }
+            enemy.updateBullets(); // 更新敌方子弹
+        }
+
+        // 移除失效的孤儿子弹
+        for (int i = orphanedBullets.size() - 1; i >= 0; i--) {
+            EnemyBullet bullet = orphanedBullets.get(i);
+            if (!bullet.isActive() || isOutOfBounds(bullet)) {
+                orphanedBullets.remove(i);
+                bullet.release();
+            }
+        }
+
+        // 移动子弹并处理与墙体/边界的碰撞
+        moveBullets();
+        // 检查子弹与坦克的碰撞
+        checkBulletCollisions();
+        if (over) return;
+
+        // 敌人全部被消灭后，延迟一段时间生成下一波
+        if (waveDelayTicks > 0 && --waveDelayTicks == 0) {
+            createInitialEnemies();
+        }
+
+        // 更新爆炸效果
+        explosions.update();
+    }
+
+    /**
+     * 围攻模式下以玩家位置更新流场
+     * @return 流场，非围攻模式或尚无法构建导航网格时返回 null
+     */
+    private FlowField updateFlowField() {
+        if (!siegeMode || enemies.isEmpty()) return null;
+        if (!(detector instanceof SimpleCollisionDetector)) return null;
+        EnemyTank sample = enemies.get(0);
+        NavigationGrid grid = ((SimpleCollisionDetector) detector)
+                .getNavigationGrid(sample.getWidth(), sample.getHeight());
+        if (grid == null) return null;
+        flowField.update(grid, player.getX(), player.getY());
+        return flowField;
+    }
+
+    private boolean isOutOfBounds(EnemyBullet bullet) {
+        Rectangle bounds = bullet.getCollisionBounds();
+        if (bounds == null) return true;
+        return bounds.x < 0 || bounds.y < 0 || bounds.x > width || bounds.y > height;
+    }
+
+    // 把玩家坦克放在区域中心
+    private void repositionPlayerTank() {
+        if (!hasValidArea()) return;
+        int centerX = width / 2 - player.getWidth() / 2;
+        int centerY = height / 2 - player.getHeight() / 2;
+        player.setPosition(centerX, centerY);
+    }
+
+    // 创建一波敌方坦克
+    private void createInitialEnemies() {
+        if (!hasValidArea()) return;
+        int enemyCount = nextWaveSize();
+        for (int i = 0; i < enemyCount; i++) {
+            createEnemy();
+        }
+    }
+
+    // 每波敌人数量：围攻模式按配置，否则1到3个
+    private int nextWaveSize() {
+        if (siegeMode) {
+            return siegeEnemyCount;
+        }
+        return random.nextInt(3) + 1;
+    }
+
+    private void createEnemy() {
+        int maxAttempts = 10; // 设置最大尝试次数，防止无限循环
+        int attempts = 0;
+
+        int enemyX = random.nextInt(Math.max(1, width - 80));
+        int enemyY = random.nextInt(Math.max(1, height - 80));
+
+        // 确保敌人不会与玩家重叠、不会生成在墙里，但限制尝试次数
+        while (((Math.abs(enemyX - player.getX()) < 100 && Math.abs(enemyY - player.getY()) < 100) ||
+                detector.isColliding(enemyX, enemyY, 66, 66)) && // 敌方坦克尺寸66x66
+                attempts < maxAttempts) {
+            enemyX = random.nextInt(Math.max(1, width - 80));
+            enemyY = random.nextInt(Math.max(1, height - 80));
+            attempts++;
+        }
+
+        EnemyTank enemy = new EnemyTank(enemyX, enemyY, detector);
+        attach(enemy);
+        enemies.add(enemy);
+    }
+
+    /**
+     * 推进所有子弹：移动并处理与墙体/边界的反弹
+     */
+    private void moveBullets() {
+        for (PlayerBullet bullet : player.getBullets()) {
+            stepBullet(bullet);
+        }
+        for (EnemyTank enemy : enemies) {
+            for (EnemyBullet bullet : enemy.getBullets()) {
+                stepBullet(bullet);
+            }
+        }
+        for (EnemyBullet bullet : orphanedBullets) {
+            stepBullet(bullet);
+        }
+    }
+
+    private void stepBullet(Bullet bullet) {
+        // 按逻辑帧计算存活时间，过期的子弹在下一次 updateBullets() 时移除
+        bullet.updateLifetime();
+        if (bulletPhysics != null) {
+            bulletPhysics.step(bullet);
+        } else {
+            bullet.updatePosition();
+        }
+    }
+
+    private void checkBulletCollisions() {
+        if (enemies.isEmpty()) {
+            return;
+        }
+
+        // 粗筛：按位置把敌方坦克分入网格，子弹只检测附近的坦克
+        enemyHitGrid.rebuild(enemies, width, height);
+        boolean enemyDestroyed = false;
+
+        // 检查玩家子弹是否击中敌方坦克
+        for (PlayerBullet bullet : player.getBullets()) {
+            if (bullet == null || !bullet.isActive()) continue;
+
+            EnemyTank enemy = enemyHitGrid.findHit(bullet.getCenterX(), bullet.getCenterY(), bullet.getRadius());
+            if (enemy == null) continue;
+
+            bullet.deactivate(); // 击中坦克直接消失，不反弹
+            // 在坦克死亡前，保存它的子弹到孤儿子弹列表，并清空坦克的子弹列表防止重复
+            orphanedBullets.addAll(enemy.getBullets());
+            enemy.getBullets().clear();
+            // 然后再处理坦克伤害
+            enemy.takeDamage(bullet.getDamage());
+            if (!enemy.isAlive()) {
+                beatNum++;
+                listener.statsChanged(beatNum, player.getHealth());
+                enemyDestroyed = true;
+            }
+        }
+
+        if (enemyDestroyed) {
+            // 移除被摧毁的敌方坦克，没有敌人时等待生成下一波
+            enemies.removeIf(enemy -> !enemy.isAlive());
+            if (enemies.isEmpty()) {
+                waveDelayTicks = WAVE_DELAY_TICKS;
+            }
+        }
+
+        // 检查敌方子弹是否击中玩家坦克（只有一个目标，直接比较包围盒）
+        if (!player.isAlive()) return;
+        int px = player.getX(), py = player.getY();
+        int pw = player.getWidth(), ph = player.getHeight();
+        for (EnemyTank enemy : enemies) {
+            for (EnemyBullet bullet : enemy.getBullets()) {
+                if (!bullet.isActive() || !player.isAlive()) continue;
+                int r = bullet.getRadius();
+                int bx = (int) bullet.getCenterX() - r;
+                int by = (int) bullet.getCenterY() - r;
+                if (bx < px + pw && px < bx + 2 * r && by < py + ph && py < by + 2 * r) {
+                    bullet.deactivate();
+                    player.takeDamage(bullet.getDamage());
+                    listener.statsChanged(beatNum, player.getHealth());
+
+                    if (player.getHealth() <= 0) {
+                        System.out.println("玩家生命值为0，游戏结束");
+                        gameOver();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void gameOver() {
+        if (over) return;
+        over = true;
+        explosions.clearAllExplosions();
+        listener.gameOver(beatNum);
+    }
+
+    /**
+     * 把所有敌方坦克的子弹和孤儿子弹归还子弹池
+     */
+    private void releaseEnemyBullets() {
+        for (EnemyTank enemy : enemies) {
+            enemy.clearBullets();
+        }
+        for (EnemyBullet bullet : orphanedBullets) {
+            bullet.release();
+        }
+        orphanedBullets.clear();
+    }
+
+    /**
+     * 把坦克、子弹和爆炸加入快照
+     */
+    public void addToSnapshot(WorldSnapshot.Builder builder) {
+        builder.addTank(player);
+        for (EnemyTank enemy : enemies) {
+            builder.addTank(enemy);
+        }
+        builder.addBullets(player.getBullets());
+        for (EnemyTank enemy : enemies) {
+            if (enemy.isAlive()) {
+                builder.addBullets(enemy.getBullets());
+            }
+        }
+        builder.addBullets(orphanedBullets);
+        explosions.addToSnapshot(builder);
+    }
+
+    public CollisionDetector getDetector() {
+        return detector;
+    }
+
+    public PlayerTank getPlayer() {
+        return player;
+    }
+
+    public List<EnemyTank> getEnemies() {
+        return enemies;
+    }
+
+    public List<PVPWall> getWalls() {
+        return walls;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBeatNum() {
+        return beatNum;
+    }
+
+    public int getPlayerHealth() {
+        return player.getHealth();
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    public long getTickCount() {
+        return clock.getTick();
+    }
+}
@@ -0,0 +1,375 @@
+package src.com.bjsxt.tank.World;
+
+import src.com.bjsxt.tank.Config.*;
+import src.com.bjsxt.tank.Structure.PVEWall;
+
+import java.awt.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 人机对战回放
+ * 读取 ReplayRecorder 写的日志，在一个无界面的 PVEWorld 中按记录的种子和输入重新模拟整局，不受实际帧率限制。
+ * 坦克和AI的内部状态无法整体保存，定位到某一帧时从开局重新模拟（每秒可推进数万帧）；
+ * 途经的关键帧与记录的状态摘要比较，第一个不一致的关键帧说明问题出在它之前的一段
+ */
+public class ReplayPlayer {
+    // 回放用的世界只需要少量子弹
+    private static final int BULLET_POOL_CAPACITY = 256;
+
+    /**
+     * 日志中的一个关键帧
+     */
+    public static final class Keyframe {
+        public final long tick;
+        public final int level;
+        public final int playerScore;
+        public final int enemyScore;
+        public final int playerX, playerY;
+        public final int aiX, aiY;
+        public final long stateHash;
+
+        Keyframe(long tick, int level, int playerScore, int enemyScore,
+                 int playerX, int playerY, int aiX, int aiY, long stateHash) {
+            this.tick = tick;
+            this.level = level;
+            this.playerScore = playerScore;
+            this.enemyScore = enemyScore;
+            this.playerX = playerX;
+            this.playerY = playerY;
+            this.aiX = aiX;
+            this.aiY = aiY;
+            this.stateHash = stateHash;
+        }
+    }
+
+    private final byte[] log;
+    private final int bodyStart;
+    private final long seed;
+    private final int startLevel;
+    private final int startPlayerScore;
+    private final int startEnemyScore;
+    private final int startWidth;
+    private final int startHeight;
+    private final AIDataStore.AIData learnedData;
+    private final List<Rectangle> recordedWalls;
+    private final List<Keyframe> keyframes = new ArrayList<>();
+    private long length;
+    private boolean complete; // 日志以 OP_END 结尾；游戏中途退出时最后一段可能缺失
+
+    private PVEWorld world;
+    private int pos;
+    private long tick;
+    private long pendingTicks;
+    private long firstMismatch = -1;
+
+    private ReplayPlayer(byte[] log) throws IOException {
+        this.log = log;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(log));
+        if (in.readInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("不是回放文件");
+        }
+        int version = in.readUnsignedShort();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException("不支持的回放版本: " + version);
+        }
+        seed = in.readLong();
+        startLevel = in.readInt();
+        startPlayerScore = in.readInt();
+        startEnemyScore = in.readInt();
+        startWidth = in.readInt();
+        startHeight = in.readInt();
+        learnedData = AIDataStore.readData(in);
+        int wallCount = in.readInt();
+        if (wallCount < 0 || wallCount > log.length / 16) {
+            throw new IOException("墙体数量异常: " + wallCount);
+        }
+        recordedWalls = new ArrayList<>(wallCount);
+        for (int i = 0; i < wallCount; i++) {
+            recordedWalls.add(new Rectangle(in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+        }
+        bodyStart = log.length - in.available();
+        index();
+        restart();
+    }
+
+    /**
+     * 读取回放文件
+     */
+    public static ReplayPlayer open(File file) throws IOException {
+        try {
+            return new ReplayPlayer(Files.readAllBytes(file.toPath()));
+        } catch (EOFException e) {
+            throw new IOException("回放文件头不完整", e);
+        }
+    }
+
+    // 扫描一遍日志，统计总帧数并收集关键帧；遇到不完整的操作时在此截止
+    private void index() {
+        int p = bodyStart;
+        long t = 0;
+        try {
+            while (p < log.length) {
+                int op = log[p++];
+                if (op == ReplayRecorder.OP_END) {
+                    complete = true;
+                    break;
+                }
+                int[] cursor = {p};
+                switch (op) {
+                    case ReplayRecorder.OP_TICKS:
+                        t += readVarint(cursor);
+                        break;
+                    case ReplayRecorder.OP_KEY:
+                        readVarint(cursor);
+                        break;
+                    case ReplayRecorder.OP_RESIZE:
+                        readVarint(cursor);
+                        readVarint(cursor);
+                        break;
+                    case ReplayRecorder.OP_WALLS:
+                        break;
+                    case ReplayRecorder.OP_KEYFRAME:
+                        keyframes.add(readKeyframe(cursor));
+                        break;
+                    default:
+                        throw new IOException("未知的回放操作: " + op);
+                }
+                p = cursor[0];
+                length = t;
+            }
+        } catch (IOException e) {
+            System.err.println("回放日志在第 " + t + " 帧之后不完整: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 回到开局：按文件头重新创建世界
+     */
+    public void restart() {
+        if (world != null) {
+            world.clearEffects();
+        }
+        world = new PVEWorld(new SimpleCollisionDetector(new Dimension(startWidth, startHeight)),
+                new BulletPool(BULLET_POOL_CAPACITY), new ExplosionManager(), new GameRandom());
+        world.getAITank().setPersistent(false);
+        world.getAITank().importLearnedData(learnedData);
+        world.setProgress(startLevel, startPlayerScore, startEnemyScore);
+        world.resize(startWidth, startHeight);
+        world.startRound(seed);
+        checkWalls();
+
+        pos = bodyStart;
+        tick = 0;
+        pendingTicks = 0;
+    }
+
+    // 墙体由种子生成，与记录不同说明生成算法或开局状态已经改变，之后的回放不可信
+    private void checkWalls() {
+        List<PVEWall> walls = world.getWalls();
+        boolean same = walls.size() == recordedWalls.size();
+        for (int i = 0; same && i < walls.size(); i++) {
+            same = walls.get(i).getCollisionBounds().equals(recordedWalls.get(i));
+        }
+        if (!same) {
+            System.err.println("回放的墙体布局与记录不一致，结果可能与原对局不同");
+        }
+    }
+
+    /**
+     * 推进一帧
+     * @return 已经到达日志末尾时返回 false
+     */
+    public boolean step() {
+        if (!readUntilTick()) {
+            return false;
+        }
+        pendingTicks--;
+        world.tick();
+        tick++;
+        // 紧跟在这一帧之后的操作（关键帧校验、下一帧之前的按键）立即执行
+        readUntilTick();
+        return true;
+    }
+
+    // 执行操作直到下一帧可以推进，遇到日志结尾时返回 false
+    private boolean readUntilTick() {
+        while (pendingTicks == 0) {
+            if (pos >= log.length || !readOperation()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 执行一条操作，遇到日志结尾或不完整的操作时返回 false
+    private boolean readOperation() {
+        int op = log[pos];
+        int[] cursor = {pos + 1};
+        try {
+            switch (op) {
+                case ReplayRecorder.OP_TICKS:
+                    pendingTicks = readVarint(cursor);
+                    break;
+                case ReplayRecorder.OP_KEY:
+                    long event = readVarint(cursor);
+                    world.applyKey((int) (event >>> 1), (event & 1) != 0);
+                    break;
+                case ReplayRecorder.OP_RESIZE:
+                    world.resize((int) readVarint(cursor), (int) readVarint(cursor));
+                    break;
+                case ReplayRecorder.OP_WALLS:
+                    world.generateWalls();
+                    break;
+                case ReplayRecorder.OP_KEYFRAME:
+                    verify(readKeyframe(cursor));
+                    break;
+                default:
+                    return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        pos = cursor[0];
+        return true;
+    }
+
+    private void verify(Keyframe keyframe) {
+        if (firstMismatch < 0 && world.stateHash() != keyframe.stateHash) {
+            firstMismatch = keyframe.tick;
+            System.err.println("回放在第 " + keyframe.tick + " 帧与记录不一致（记录：玩家(" + keyframe.playerX + ","
+                    + keyframe.playerY + ") AI(" + keyframe.aiX + "," + keyframe.aiY + ") 比分 "
+                    + keyframe.playerScore + ":" + keyframe.enemyScore + "）");
+        }
+    }
+
+    /**
+     * 定位到指定帧；目标在当前位置之前时从开局重新模拟
+     */
+    public void seek(long target) {
+        if (target < tick) {
+            restart();
+        }
+        while (tick < target && step()) {
+            // 连续推进直到目标帧
+        }
+    }
+
+    /**
+     * 定位到指定帧之前最近的关键帧，返回该关键帧所在的帧数
+     */
+    public long seekToKeyframe(long target) {
+        long keyframeTick = 0;
+        for (Keyframe keyframe : keyframes) {
+            if (keyframe.tick > target) break;
+            keyframeTick = keyframe.tick;
+        }
+        seek(keyframeTick);
+        return keyframeTick;
+    }
+
+    private Keyframe readKeyframe(int[] cursor) throws IOException {
+        long t = readVarint(cursor);
+        int level = (int) readVarint(cursor);
+        int playerScore = (int) readVarint(cursor);
+        int enemyScore = (int) readVarint(cursor);
+        int playerX = readSigned(cursor);
+        int playerY = readSigned(cursor);
+        int aiX = readSigned(cursor);
+        int aiY = readSigned(cursor);
+        if (cursor[0] + 8 > log.length) {
+            throw new EOFException();
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash |= (log[cursor[0]++] & 0xFFL) << (i * 8);
+        }
+        return new Keyframe(t, level, playerScore, enemyScore, playerX, playerY, aiX, aiY, hash);
+    }
+
+    private long readVarint(int[] cursor) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (cursor[0] >= log.length) {
+                throw new EOFException();
+            }
+            int b = log[cursor[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数过长");
+    }
+
+    private int readSigned(int[] cursor) throws IOException {
+        int value = (int) readVarint(cursor);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public PVEWorld getWorld() {
+        return world;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * 日志中记录的总帧数
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<Keyframe> getKeyframes() {
+        return keyframes;
+    }
+
+    /**
+     * 第一个与记录不一致的关键帧所在的帧数，没有发现不一致时返回 -1
+     */
+    public long getFirstMismatch() {
+        return firstMismatch;
+    }
+
+    /**
+     * 命令行入口：回放文件 [定位到的帧数]
+     * 不指定帧数时回放整局并校验所有关键帧，指定时停在该帧并输出当时的状态
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("用法: ReplayPlayer <回放文件> [帧数]");
+            return;
+        }
+        ReplayPlayer player = open(new File(args[0]));
+        System.out.println("种子 " + player.getSeed() + "，共 " + player.getLength() + " 帧，"
+                + player.getKeyframes().size() + " 个关键帧" + (player.isComplete() ? "" : "（记录不完整）"));
+
+        long target = args.length > 1 ? Long.parseLong(args[1]) : player.getLength();
+        long start = System.nanoTime();
+        player.seek(target);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        PVEWorld world = player.getWorld();
+        System.out.printf("回放到第 %d 帧用时 %.2f 秒（%.0f 倍速）%n", player.getTick(), seconds,
+                player.getTick() / (double) SimClock.TICK_RATE / Math.max(seconds, 1e-9));
+        System.out.println("关卡 " + world.getLevel() + "，比分 " + world.getPlayerScore() + ":" + world.getEnemyScore()
+                + (world.isOver() ? "，对局已结束" : ""));
+        System.out.println(player.getFirstMismatch() < 0 ? "所有经过的关键帧与记录一致"
+                : "第一个不一致的关键帧: 第 " + player.getFirstMismatch() + " 帧");
+        if (args.length > 1) {
+            System.out.print(world.buildDebugText());
+        }
+        world.clearEffects();
+    }
+}
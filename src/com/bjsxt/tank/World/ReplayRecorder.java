@@ -0,0 +1,302 @@
+package src.com.bjsxt.tank.World;
+
+import src.com.bjsxt.tank.Config.AIDataStore;
+import src.com.bjsxt.tank.Structure.PVEWall;
+
+import java.awt.*;
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 人机对战回放记录
+ * 每局写一个二进制日志：文件头记录种子、关卡比分、区域大小、AI学习数据和墙体布局，
+ * 之后只记录按键、窗口大小变化等外部输入，没有输入的逻辑帧按连续帧数合并为一条；
+ * 每隔 KEYFRAME_INTERVAL 帧写一个关键帧，保存当时的比分、坦克位置和状态摘要，供回放时定位和校验。
+ * 记录在模拟线程上写入内存缓冲，攒够一批后交给后台线程追加到文件，平时每帧只有零到几个字节
+ */
+public class ReplayRecorder {
+    static final int MAGIC = 0x54575250; // "TWRP"
+    static final int VERSION = 1;
+
+    // 日志中的操作类型
+    static final int OP_TICKS = 1;      // 连续推进若干帧
+    static final int OP_KEY = 2;        // 按键事件
+    static final int OP_RESIZE = 3;     // 游戏区域大小变化
+    static final int OP_WALLS = 4;      // 重新生成墙体
+    static final int OP_KEYFRAME = 5;   // 关键帧
+    static final int OP_END = 6;        // 正常结束
+
+    // 关键帧间隔（逻辑帧数，约5秒）
+    static final int KEYFRAME_INTERVAL = 300;
+    // 缓冲超过此大小时交给后台线程写盘
+    private static final int FLUSH_BYTES = 4096;
+    // 最多保留的回放文件数，超出时删除最旧的
+    private static final int MAX_FILES = 20;
+    static final String EXTENSION = ".twr";
+
+    private static ReplayRecorder instance;
+
+    private final File dir;
+    private final ExecutorService writer;
+    // 只由写入线程访问
+    private OutputStream out;
+
+    // 以下字段只在模拟线程上访问；游戏循环停止后可以由停止它的线程访问
+    private byte[] buffer = new byte[FLUSH_BYTES * 2];
+    private int size;
+    private boolean recording;
+    private int pendingTicks;
+    private long ticks;
+
+    public static synchronized ReplayRecorder getInstance() {
+        if (instance == null) {
+            instance = new ReplayRecorder(new File(System.getProperty("user.dir") + File.separator + "Data", "Replays"));
+        }
+        return instance;
+    }
+
+    public ReplayRecorder(File dir) {
+        this.dir = dir;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ReplayWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 退出游戏时写完已提交的记录
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "ReplayFlush"));
+    }
+
+    /**
+     * 开始记录一局，在 world.startRound(seed) 之后、第一个逻辑帧之前调用；上一局没有结束时先结束它。
+     * 与 tick()、key() 一样只能在模拟线程上或游戏循环停止时调用
+     */
+    public void begin(PVEWorld world, long seed) {
+        if (recording) {
+            end();
+        }
+        ByteArrayOutputStream header = new ByteArrayOutputStream(1024);
+        try {
+            DataOutputStream data = new DataOutputStream(header);
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeLong(seed);
+            data.writeInt(world.getLevel());
+            data.writeInt(world.getPlayerScore());
+            data.writeInt(world.getEnemyScore());
+            data.writeInt(world.getWidth());
+            data.writeInt(world.getHeight());
+            AIDataStore.writeData(data, world.getAITank().exportLearnedData());
+            // 墙体由种子生成，记录下来用于回放时核对生成结果
+            data.writeInt(world.getWalls().size());
+            for (PVEWall wall : world.getWalls()) {
+                Rectangle bounds = wall.getCollisionBounds();
+                data.writeInt(bounds.x);
+                data.writeInt(bounds.y);
+                data.writeInt(bounds.width);
+                data.writeInt(bounds.height);
+            }
+            data.flush();
+        } catch (IOException e) {
+            // 写入内存不会失败
+            throw new UncheckedIOException(e);
+        }
+
+        size = 0;
+        pendingTicks = 0;
+        ticks = 0;
+        recording = true;
+        byte[] bytes = header.toByteArray();
+        String name = "pve-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-"
+                + Long.toHexString(seed) + EXTENSION;
+        writer.execute(() -> open(new File(dir, name), bytes));
+    }
+
+    /**
+     * 记录一个按键事件，在 world.applyKey() 之前调用
+     */
+    public void key(int keyCode, boolean pressed) {
+        if (!recording) return;
+        flushTicks();
+        put(OP_KEY);
+        putVarint(((long) keyCode << 1) | (pressed ? 1 : 0));
+    }
+
+    /**
+     * 记录游戏区域大小变化
+     */
+    public void resize(int width, int height) {
+        if (!recording) return;
+        flushTicks();
+        put(OP_RESIZE);
+        putVarint(width);
+        putVarint(height);
+    }
+
+    /**
+     * 记录一次外部触发的墙体重新生成
+     */
+    public void regenerateWalls() {
+        if (!recording) return;
+        flushTicks();
+        put(OP_WALLS);
+    }
+
+    /**
+     * 记录一个逻辑帧，在 world.tick() 之后调用
+     */
+    public void tick(PVEWorld world) {
+        if (!recording) return;
+        pendingTicks++;
+        ticks++;
+        if (ticks % KEYFRAME_INTERVAL == 0) {
+            flushTicks();
+            writeKeyframe(world);
+        }
+        if (size >= FLUSH_BYTES) {
+            submit();
+        }
+    }
+
+    /**
+     * 结束当前记录并关闭文件
+     */
+    public void end() {
+        if (!recording) return;
+        recording = false;
+        flushTicks();
+        put(OP_END);
+        submit();
+        writer.execute(this::closeFile);
+    }
+
+    /**
+     * 等待已提交的记录写完，需要立即读取回放文件时使用
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("等待回放写入失败: " + e.getMessage());
+        }
+    }
+
+    // 退出时关闭文件；缓冲中尚未提交的最后几帧丢弃，已写入的部分仍可回放
+    private void shutdown() {
+        writer.execute(this::closeFile);
+        flush();
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    private void writeKeyframe(PVEWorld world) {
+        put(OP_KEYFRAME);
+        putVarint(ticks);
+        putVarint(world.getLevel());
+        putVarint(world.getPlayerScore());
+        putVarint(world.getEnemyScore());
+        putSigned(world.getPlayer().getX());
+        putSigned(world.getPlayer().getY());
+        putSigned(world.getAITank().getX());
+        putSigned(world.getAITank().getY());
+        long hash = world.stateHash();
+        for (int i = 0; i < 8; i++) {
+            put((int) (hash >>> (i * 8)));
+        }
+    }
+
+    private void flushTicks() {
+        if (pendingTicks > 0) {
+            put(OP_TICKS);
+            putVarint(pendingTicks);
+            pendingTicks = 0;
+        }
+    }
+
+    // 把缓冲中的内容交给写入线程
+    private void submit() {
+        if (size == 0) return;
+        byte[] chunk = Arrays.copyOf(buffer, size);
+        size = 0;
+        writer.execute(() -> append(chunk));
+    }
+
+    private void put(int b) {
+        if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[size++] = (byte) b;
+    }
+
+    // 无符号变长整数，每字节7位
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            put((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        put((int) value);
+    }
+
+    // 有符号整数先做zigzag编码，小的负数也只占一两个字节
+    private void putSigned(int value) {
+        putVarint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    // 以下方法在写入线程上执行
+
+    private void open(File file, byte[] header) {
+        closeFile();
+        try {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("无法创建回放目录: " + dir);
+            }
+            pruneOldFiles();
+            out = new BufferedOutputStream(new FileOutputStream(file), FLUSH_BYTES * 2);
+            out.write(header);
+        } catch (IOException e) {
+            System.err.println("无法创建回放文件: " + e.getMessage());
+            e.printStackTrace();
+            out = null;
+        }
+    }
+
+    private void append(byte[] chunk) {
+        if (out == null) return;
+        try {
+            out.write(chunk);
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("写入回放失败: " + e.getMessage());
+            e.printStackTrace();
+            closeFile();
+        }
+    }
+
+    private void closeFile() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("关闭回放文件失败: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    // 只保留最近的 MAX_FILES - 1 个文件，给即将创建的新文件留出位置
+    private void pruneOldFiles() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(EXTENSION));
+        if (files == null || files.length < MAX_FILES) return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i <= files.length - MAX_FILES; i++) {
+            if (!files[i].delete()) {
+                System.err.println("无法删除旧回放: " + files[i].getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package src.com.bjsxt.tank.World;
+
+import src.com.bjsxt.tank.Config.*;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * AI坦克批量自我对局训练
+ * 在无界面的 PVEWorld 中让AI坦克与脚本控制的玩家坦克对战，对局分批交给 ForkJoinPool 在所有核心上并行运行；
+ * 每一轮所有对局都从同一份学习数据出发，结束后合并各自的结果，作为下一轮的起点，全部完成后写入存档
+ */
+public class SelfPlayTrainer {
+    // 训练场地大小
+    private static final int AREA_WIDTH = 1000;
+    private static final int AREA_HEIGHT = 700;
+    // 单局最多推进的逻辑帧数（按每秒60帧计为3分钟）
+    private static final int MAX_MATCH_TICKS = 60 * 180;
+    // 每个任务连续运行的对局数，少于此数不再拆分
+    private static final int MATCHES_PER_TASK = 8;
+
+    private final ForkJoinPool pool;
+    private final long seed;
+    private AIDataStore.AIData baseline;
+    // 统计
+    private int aiWins;
+    private int playerWins;
+    private int draws;
+
+    public SelfPlayTrainer(ForkJoinPool pool, long seed) {
+        this.pool = pool;
+        this.seed = seed;
+    }
+
+    /**
+     * 运行若干轮训练
+     * @param matchesPerRound 每轮并行运行的对局数
+     * @param rounds 轮数
+     * @return 合并后的学习数据
+     */
+    public AIDataStore.AIData train(int matchesPerRound, int rounds) {
+        baseline = loadBaseline();
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            List<BatchResult> results = pool.invoke(new MatchBatch(round, 0, matchesPerRound));
+
+            List<AIDataStore.AIData> learned = new ArrayList<>(results.size());
+            for (BatchResult result : results) {
+                learned.add(result.data);
+                aiWins += result.aiWins;
+                playerWins += result.playerWins;
+                draws += result.draws;
+            }
+            baseline = AIDataStore.AIData.merge(baseline, learned);
+            System.out.printf("第 %d/%d 轮完成，%d 局，用时 %.1f 秒（累计 AI胜 %d / 玩家胜 %d / 超时 %d）%n",
+                    round + 1, rounds, matchesPerRound, (System.nanoTime() - start) / 1e9,
+                    aiWins, playerWins, draws);
+        }
+        return baseline;
+    }
+
+    // 以存档中的数据为起点，没有存档时使用默认权重
+    private AIDataStore.AIData loadBaseline() {
+        AIDataStore.AIData data = AIDataStore.getInstance().load();
+        if (data != null) {
+            return data;
+        }
+        AITank tank = new AITank(0, 0, new SimpleCollisionDetector(new Dimension(AREA_WIDTH, AREA_HEIGHT)));
+        tank.setPersistent(false);
+        return tank.exportLearnedData();
+    }
+
+    /**
+     * 一批对局，超过 MATCHES_PER_TASK 时对半拆分
+     */
+    private class MatchBatch extends RecursiveTask<List<BatchResult>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int round;
+        private final int from;
+        private final int to;
+
+        MatchBatch(int round, int from, int to) {
+            this.round = round;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<BatchResult> compute() {
+            if (to - from <= MATCHES_PER_TASK) {
+                List<BatchResult> results = new ArrayList<>(1);
+                results.add(runMatches());
+                return results;
+            }
+            int mid = (from + to) >>> 1;
+            MatchBatch left = new MatchBatch(round, from, mid);
+            left.fork();
+            List<BatchResult> results = new MatchBatch(round, mid, to).compute();
+            results.addAll(left.join());
+            return results;
+        }
+
+        // 在一个独立的世界中连续运行本批对局，AI坦克在对局之间持续学习
+        private BatchResult runMatches() {
+            GameRandom random = new GameRandom(seed + round * 1_000_003L + from);
+            PVEWorld world = new PVEWorld(new SimpleCollisionDetector(new Dimension(AREA_WIDTH, AREA_HEIGHT)),
+                    new BulletPool(256), new ExplosionManager(), random);
+            AITank ai = world.getAITank();
+            ai.setPersistent(false);
+            ai.importLearnedData(baseline);
+            world.resize(AREA_WIDTH, AREA_HEIGHT);
+
+            MatchOutcome outcome = new MatchOutcome();
+            world.setListener(outcome);
+            ScriptedPilot pilot = new ScriptedPilot(random.split());
+            int aiWins = 0, playerWins = 0, draws = 0;
+
+            for (int match = from; match < to; match++) {
+                world.setProgress(1, 0, 0);
+                world.reset();
+                world.startRound();
+                outcome.reset();
+                pilot.reset();
+
+                for (int tick = 0; tick < MAX_MATCH_TICKS && !outcome.decided(); tick++) {
+                    pilot.drive(world);
+                    world.tick();
+                }
+
+                if (outcome.decided()) {
+                    if (outcome.aiWon) aiWins++; else playerWins++;
+                    ai.onMatchEnd(outcome.aiWon, world.getPlayer());
+                } else {
+                    // 超时按比分判定，平局不作为胜负学习
+                    draws++;
+                    if (world.getEnemyScore() != world.getPlayerScore()) {
+                        ai.onMatchEnd(world.getEnemyScore() > world.getPlayerScore(), world.getPlayer());
+                    }
+                }
+            }
+            world.clearEffects();
+            return new BatchResult(ai.exportLearnedData(), aiWins, playerWins, draws);
+        }
+    }
+
+    /**
+     * 一个任务的训练结果
+     */
+    private static class BatchResult {
+        final AIDataStore.AIData data;
+        final int aiWins;
+        final int playerWins;
+        final int draws;
+
+        BatchResult(AIDataStore.AIData data, int aiWins, int playerWins, int draws) {
+            this.data = data;
+            this.aiWins = aiWins;
+            this.playerWins = playerWins;
+            this.draws = draws;
+        }
+    }
+
+    /**
+     * 记录一局的胜负：玩家先拿到过关分数即玩家胜，AI先拿到失败分数即AI胜
+     */
+    private static class MatchOutcome implements PVEWorld.Listener {
+        private boolean decided;
+        private boolean aiWon;
+        private int level = 1;
+
+        void reset() {
+            decided = false;
+            level = 1;
+        }
+
+        boolean decided() {
+            return decided;
+        }
+
+        @Override
+        public void scoreChanged(int level, int playerScore, int enemyScore) {
+            if (level > this.level) {
+                this.level = level;
+                decided = true;
+                aiWon = false;
+            }
+        }
+
+        @Override
+        public void gameOver(int level, int playerScore, int enemyScore) {
+            decided = true;
+            aiWon = true;
+        }
+    }
+
+    /**
+     * 脚本控制的玩家坦克：转向AI坦克，保持中等距离，对准后开火，被卡住时随机转向脱困
+     */
+    private static class ScriptedPilot {
+        private static final double AIM_TOLERANCE = Math.toRadians(6);
+        private static final int FIRE_TICKS = 20;
+
+        private final GameRandom random;
+        private final boolean[] pressed = new boolean[KeyEvent.VK_Z + 1];
+        private int fireCooldown;
+        private int wanderTicks;
+        private int wanderKey;
+        private int stuckTicks;
+        private int lastX = Integer.MIN_VALUE;
+        private int lastY = Integer.MIN_VALUE;
+
+        ScriptedPilot(GameRandom random) {
+            this.random = random;
+        }
+
+        void reset() {
+            Arrays.fill(pressed, false);
+            fireCooldown = 0;
+            wanderTicks = 0;
+            stuckTicks = 0;
+            lastX = lastY = Integer.MIN_VALUE;
+        }
+
+        void drive(PVEWorld world) {
+            PlayerTank player = world.getPlayer();
+            AITank ai = world.getAITank();
+            if (!player.isAlive()) {
+                reset();
+                return;
+            }
+
+            // 原地不动一段时间视为被墙卡住，随机转向后前进
+            if (player.getX() == lastX && player.getY() == lastY && pressed[KeyEvent.VK_UP]) {
+                stuckTicks++;
+            } else {
+                stuckTicks = 0;
+            }
+            lastX = player.getX();
+            lastY = player.getY();
+            if (stuckTicks > 20 && wanderTicks == 0) {
+                wanderTicks = 15 + random.nextInt(30);
+                wanderKey = random.nextBoolean() ? KeyEvent.VK_LEFT : KeyEvent.VK_RIGHT;
+            }
+
+            if (wanderTicks > 0) {
+                wanderTicks--;
+                set(world, KeyEvent.VK_LEFT, wanderKey == KeyEvent.VK_LEFT);
+                set(world, KeyEvent.VK_RIGHT, wanderKey == KeyEvent.VK_RIGHT);
+                set(world, KeyEvent.VK_UP, true);
+                set(world, KeyEvent.VK_DOWN, false);
+                return;
+            }
+
+            if (!ai.isAlive()) {
+                set(world, KeyEvent.VK_LEFT, false);
+                set(world, KeyEvent.VK_RIGHT, false);
+                set(world, KeyEvent.VK_UP, false);
+                set(world, KeyEvent.VK_DOWN, false);
+                return;
+            }
+
+            // 玩家坦克角度0为向上，顺时针为正
+            double dx = (ai.getX() + ai.getWidth() / 2.0) - (player.getX() + player.getWidth() / 2.0);
+            double dy = (ai.getY() + ai.getHeight() / 2.0) - (player.getY() + player.getHeight() / 2.0);
+            double diff = Math.atan2(dx, -dy) - player.getAngle();
+            diff = Math.atan2(Math.sin(diff), Math.cos(diff));
+            set(world, KeyEvent.VK_LEFT, diff < -AIM_TOLERANCE);
+            set(world, KeyEvent.VK_RIGHT, diff > AIM_TOLERANCE);
+
+            double distance = Math.hypot(dx, dy);
+            set(world, KeyEvent.VK_UP, distance > 280);
+            set(world, KeyEvent.VK_DOWN, distance < 140);
+
+            // 开火需要重新按下空格
+            if (pressed[KeyEvent.VK_SPACE]) {
+                set(world, KeyEvent.VK_SPACE, false);
+            } else if (--fireCooldown <= 0 && Math.abs(diff) < AIM_TOLERANCE * 2) {
+                set(world, KeyEvent.VK_SPACE, true);
+                fireCooldown = FIRE_TICKS + random.nextInt(FIRE_TICKS);
+            }
+        }
+
+        private void set(PVEWorld world, int keyCode, boolean down) {
+            if (pressed[keyCode] != down) {
+                pressed[keyCode] = down;
+                world.applyKey(keyCode, down);
+            }
+        }
+    }
+
+    /**
+     * 命令行入口：[每轮对局数] [轮数] [线程数]
+     */
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            System.out.println("开始训练：每轮 " + matches + " 局，共 " + rounds + " 轮，" + threads + " 个线程");
+            AIDataStore.AIData data = new SelfPlayTrainer(pool, System.nanoTime()).train(matches, rounds);
+            AIDataStore.getInstance().save(data);
+            AIDataStore.getInstance().flush();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
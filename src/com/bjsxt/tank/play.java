@@ -1,5 +1,6 @@
 package src.com.bjsxt.tank;
 
+import src.com.bjsxt.tank.Config.AssetManager;
 import src.com.bjsxt.tank.Structure.GameJFrame;
 import src.com.bjsxt.tank.Structure.HomeIcon;
 import src.com.bjsxt.tank.Structure.GameJMenuBar;
@@ -11,6 +12,8 @@ import java.awt.*;
 public class play {
 
     public static void main(String[] args) {
+        //在开场动画期间后台并行加载所有图片，游戏中不再读取文件
+        AssetManager.getInstance().preloadAll();
         //主框架
         GameJFrame frame = GameJFrame.getInstance();
         //开始动画